@@ -0,0 +1,249 @@
+package com.infinity.omos.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.infinity.omos.dto.AlbumDto;
+import com.infinity.omos.dto.ArtistDto;
+import com.infinity.omos.dto.Artists;
+import com.infinity.omos.dto.TrackDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기존 방식(응답을 String으로 모은 뒤 JsonParser 트리로 파싱)과 SpotifyJsonReader 스트리밍 파싱 비교.
+ * 응답은 src/jmh/resources/spotify 의 50개짜리 payload를 쓴다. 실제 응답처럼 들여쓰기된 JSON이고, 읽지 않는 필드(available_markets,
+ * external_ids, preview_url 등)와 relinking된 트랙의 linked_from, 없는 id의 null 항목까지 실제 응답 모양 그대로 들어있다. (계정 정보, 개인정보 없음)
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpotifyJsonReaderBenchmark {
+
+    private byte[] searchTracks;
+    private byte[] searchAlbums;
+    private byte[] searchArtists;
+    private byte[] tracks;
+
+    @Setup
+    public void setUp() throws IOException {
+        searchTracks = load("search-tracks.json");
+        searchAlbums = load("search-albums.json");
+        searchArtists = load("search-artists.json");
+        tracks = load("tracks.json");
+    }
+
+    @Benchmark
+    public List<TrackDto> searchTracksTree() throws IOException {
+        return trackFrame(parseTree(searchTracks), new ArrayList<>());
+    }
+
+    @Benchmark
+    public List<TrackDto> searchTracksStream() throws IOException {
+        return stream(searchTracks, SpotifyJsonReader::readSearchTracks);
+    }
+
+    @Benchmark
+    public List<AlbumDto> searchAlbumsTree() throws IOException {
+        return albumFrame(parseTree(searchAlbums), new ArrayList<>());
+    }
+
+    @Benchmark
+    public List<AlbumDto> searchAlbumsStream() throws IOException {
+        return stream(searchAlbums, SpotifyJsonReader::readSearchAlbums);
+    }
+
+    @Benchmark
+    public List<ArtistDto> searchArtistsTree() throws IOException {
+        return artistsFrame(parseTree(searchArtists), new ArrayList<>());
+    }
+
+    @Benchmark
+    public List<ArtistDto> searchArtistsStream() throws IOException {
+        return stream(searchArtists, SpotifyJsonReader::readSearchArtists);
+    }
+
+    @Benchmark
+    public Map<String, TrackDto> tracksTree() throws IOException {
+        Map<String, TrackDto> trackDtos = new HashMap<>();
+        JsonArray items = parseTree(tracks).get("tracks").getAsJsonArray();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).isJsonNull()) {
+                continue;
+            }
+            TrackDto trackDto = trackObject(items.get(i).getAsJsonObject(), new TrackDto());
+            trackDtos.put(trackDto.getMusicId(), trackDto);
+        }
+        return trackDtos;
+    }
+
+    @Benchmark
+    public Map<String, TrackDto> tracksStream() throws IOException {
+        return stream(tracks, SpotifyJsonReader::readTracks);
+    }
+
+    private static <T> T stream(byte[] payload, SpotifyJsonReader.ValueReader<T> valueReader) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8))) {
+            return valueReader.read(reader);
+        }
+    }
+
+    // 기존 requestSpotifyApi와 같이 한 줄씩 읽어 String으로 모은 뒤 트리로 파싱
+    private static JsonObject parseTree(byte[] payload) throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8));
+        String line;
+        StringBuilder result = new StringBuilder();
+        while ((line = br.readLine()) != null) {
+            result.append(line);
+        }
+        br.close();
+        return JsonParser.parseString(result.toString()).getAsJsonObject();
+    }
+
+    private static byte[] load(String name) throws IOException {
+        try (InputStream in = SpotifyJsonReaderBenchmark.class.getResourceAsStream("/spotify/" + name)) {
+            if (in == null) {
+                throw new IOException("해당 payload가 존재하지 않습니다. " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    // 이하 스트리밍 파서로 바꾸기 전 SpotifyAllSearchApi의 트리 파싱 코드
+
+    private static TrackDto trackObject(JsonObject object, TrackDto trackDto) {
+        JsonObject album = object.get("album").getAsJsonObject();
+        trackDto.setAlbumId(album.get("id").getAsString());
+        JsonArray imageList = album.get("images").getAsJsonArray();
+        if (imageList.isEmpty()) {
+            trackDto.setAlbumImageUrl(null);
+        } else {
+            trackDto.setAlbumImageUrl(imageList.get(1).getAsJsonObject().get("url").getAsString());
+        }
+        trackDto.setAlbumTitle(album.get("name").getAsString());
+        trackDto.setReleaseDate(album.get("release_date").getAsString());
+
+        JsonArray artists = object.get("artists").getAsJsonArray();
+        List<Artists> artists1 = new ArrayList<>();
+        for (int j = 0; j < artists.size(); j++) {
+            Artists artists2 = new Artists();
+            artists2.setArtistName(artists.get(j).getAsJsonObject().get("name").getAsString());
+            artists2.setArtistId(artists.get(j).getAsJsonObject().get("id").getAsString());
+            artists1.add(artists2);
+        }
+        trackDto.setArtists(artists1);
+
+        trackDto.setMusicTitle(object.get("name").getAsString());
+        trackDto.setMusicId(object.get("id").getAsString());
+        return trackDto;
+    }
+
+    private static List<TrackDto> trackFrame(JsonObject object, List<TrackDto> trackDtos) {
+        JsonArray items = object.get("tracks").getAsJsonObject().get("items").getAsJsonArray();
+
+        for (int i = 0; i < items.size(); i++) {
+            TrackDto trackDto = new TrackDto();
+            JsonObject album = items.get(i).getAsJsonObject().get("album").getAsJsonObject();
+            JsonArray artists = album.get("artists").getAsJsonArray();
+            List<Artists> artists1 = new ArrayList<>();
+            for (int j = 0; j < artists.size(); j++) {
+                Artists artists2 = new Artists();
+                artists2.setArtistName(artists.get(j).getAsJsonObject().get("name").getAsString());
+                artists2.setArtistId(artists.get(j).getAsJsonObject().get("id").getAsString());
+                artists1.add(artists2);
+            }
+            trackDto.setArtists(artists1);
+            trackDto.setAlbumId(album.get("id").getAsString());
+
+            JsonArray images = album.get("images").getAsJsonArray();
+            if (images.isEmpty()) {
+                trackDto.setAlbumImageUrl(null);
+            } else {
+                trackDto.setAlbumImageUrl(images.get(1).getAsJsonObject().get("url").getAsString());
+            }
+
+            trackDto.setAlbumTitle(album.get("name").getAsString());
+            trackDto.setReleaseDate(album.get("release_date").getAsString());
+
+            trackDto.setMusicId(items.get(i).getAsJsonObject().get("id").getAsString());
+            trackDto.setMusicTitle(items.get(i).getAsJsonObject().get("name").getAsString());
+            trackDtos.add(trackDto);
+        }
+        return trackDtos;
+    }
+
+    private static List<ArtistDto> artistsFrame(JsonObject object, List<ArtistDto> artistDtos) {
+        JsonArray items = object.get("artists").getAsJsonObject().get("items").getAsJsonArray();
+
+        for (int i = 0; i < items.size(); i++) {
+            ArtistDto artistDto = new ArtistDto();
+            JsonArray genres = items.get(i).getAsJsonObject().get("genres").getAsJsonArray();
+            List<String> genre = new ArrayList<>();
+            for (int j = 0; j < genres.size(); j++) {
+                genre.add(genres.get(j).getAsString());
+            }
+            artistDto.setGenres(genre);
+
+            JsonArray imagesArray = items.get(i).getAsJsonObject().get("images").getAsJsonArray();
+            if (imagesArray.isEmpty()) {
+                artistDto.setArtistImageUrl(null);
+            } else {
+                artistDto.setArtistImageUrl(imagesArray.get(0).getAsJsonObject().get("url").getAsString());
+            }
+
+            artistDto.setArtistId(items.get(i).getAsJsonObject().get("id").getAsString());
+            artistDto.setArtistName(items.get(i).getAsJsonObject().get("name").getAsString());
+            artistDtos.add(artistDto);
+        }
+        return artistDtos;
+    }
+
+    private static List<AlbumDto> albumFrame(JsonObject object, List<AlbumDto> albumDtos) {
+        JsonArray items = object.get("albums").getAsJsonObject().get("items").getAsJsonArray();
+
+        for (int i = 0; i < items.size(); i++) {
+            AlbumDto albumDto = new AlbumDto();
+            JsonArray artists = items.get(i).getAsJsonObject().get("artists").getAsJsonArray();
+            List<Artists> artistsList = new ArrayList<>();
+            for (int j = 0; j < artists.size(); j++) {
+                JsonObject artist = artists.get(j).getAsJsonObject();
+                artistsList.add(
+                        Artists.builder()
+                                .artistId(artist.get("id").getAsString())
+                                .artistName(artist.get("name").getAsString())
+                                .build()
+                );
+            }
+            albumDto.setArtists(artistsList);
+
+            JsonArray imagesList = items.get(i).getAsJsonObject().get("images").getAsJsonArray();
+            if (imagesList.isEmpty()) {
+                albumDto.setAlbumImageUrl(null);
+            } else {
+                albumDto.setAlbumImageUrl(imagesList.get(1).getAsJsonObject().get("url").getAsString());
+            }
+
+            albumDto.setAlbumId(items.get(i).getAsJsonObject().get("id").getAsString());
+            albumDto.setAlbumTitle(items.get(i).getAsJsonObject().get("name").getAsString());
+            albumDto.setReleaseDate(items.get(i).getAsJsonObject().get("release_date").getAsString());
+            albumDtos.add(albumDto);
+        }
+        return albumDtos;
+    }
+}
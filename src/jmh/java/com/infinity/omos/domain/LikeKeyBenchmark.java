@@ -0,0 +1,126 @@
+package com.infinity.omos.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 좋아요 테이블 키 구조 비교. (H2 메모리 DB, JDBC)
+ * surrogate : id 기본키 + (user_id, post_id) 유니크 + post_id 인덱스 (이전 구조)
+ * composite : (user_id, post_id) 기본키 + (post_id, user_id) 인덱스
+ * toggle은 좋아요 insert 후 키로 delete, exists는 (user, post) 한 건, count와 likers는 레코드 하나의 좋아요.
+ * 테이블 크기는 setUp에서 출력한다. 10M 행은 rows 파라미터를 10000000으로 바꿔서 돌린다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+public class LikeKeyBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int LIKERS_PAGE = 20;
+
+    @Param({"surrogate", "composite"})
+    private String schema;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private PreparedStatement delete;
+    private PreparedStatement exists;
+    private PreparedStatement count;
+    private PreparedStatement likers;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private int posts;
+    private long toggleUserId = USERS;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:like_key_" + schema + "_" + rows);
+        try (Statement statement = connection.createStatement()) {
+            if ("surrogate".equals(schema)) {
+                statement.execute("create table like_num (id bigint auto_increment primary key, user_id bigint not null, post_id bigint not null)");
+                statement.execute("create unique index uk_like_user_post on like_num (user_id, post_id)");
+                statement.execute("create index idx_like_post on like_num (post_id)");
+                statement.execute("insert into like_num (user_id, post_id) select mod(x, " + USERS + "), x / " + USERS
+                        + " from system_range(0, " + (rows - 1) + ")");
+            } else {
+                statement.execute("create table like_num (user_id bigint not null, post_id bigint not null, primary key (user_id, post_id))");
+                statement.execute("create index idx_like_post_user on like_num (post_id, user_id)");
+                statement.execute("insert into like_num select mod(x, " + USERS + "), x / " + USERS
+                        + " from system_range(0, " + (rows - 1) + ")");
+            }
+            try (ResultSet rs = statement.executeQuery("select disk_space_used('LIKE_NUM')")) {
+                rs.next();
+                System.out.printf("%n%s rows=%d like_num=%,d bytes%n", schema, rows, rs.getLong(1));
+            }
+        }
+        posts = rows / USERS;
+
+        insert = connection.prepareStatement("insert into like_num (user_id, post_id) values (?, ?)");
+        delete = connection.prepareStatement("delete from like_num where user_id = ? and post_id = ?");
+        exists = connection.prepareStatement("select 1 from like_num where user_id = ? and post_id = ? limit 1");
+        count = connection.prepareStatement("select count(*) from like_num where post_id = ?");
+        likers = connection.prepareStatement("select user_id from like_num where post_id = ? order by user_id limit " + LIKERS_PAGE);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    //아직 좋아요를 누른 적 없는 유저로 눌렀다가 취소한다
+    @Benchmark
+    public int toggle() throws SQLException {
+        long userId = toggleUserId++;
+        long postId = random.nextInt(posts);
+        insert.setLong(1, userId);
+        insert.setLong(2, postId);
+        insert.executeUpdate();
+        delete.setLong(1, userId);
+        delete.setLong(2, postId);
+        return delete.executeUpdate();
+    }
+
+    @Benchmark
+    public boolean exists() throws SQLException {
+        exists.setLong(1, random.nextInt(USERS));
+        exists.setLong(2, random.nextInt(posts));
+        try (ResultSet rs = exists.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    @Benchmark
+    public long countByPost() throws SQLException {
+        count.setLong(1, random.nextInt(posts));
+        try (ResultSet rs = count.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Benchmark
+    public long likersByPost() throws SQLException {
+        likers.setLong(1, random.nextInt(posts));
+        long last = 0;
+        try (ResultSet rs = likers.executeQuery()) {
+            while (rs.next()) {
+                last = rs.getLong(1);
+            }
+        }
+        return last;
+    }
+}
@@ -0,0 +1,168 @@
+package com.infinity.omos.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 카테고리 레코드 목록 페이징 비교. (H2 메모리 DB, JDBC)
+ * legacyLike : cursor 레코드의 좋아요 수를 다시 세고, like 테이블과 group by 한 뒤 HAVING으로 거르는 예전 방식
+ * keysetLike : (category_id, is_public, like_count, id) 인덱스에서 (like_count, id) cursor 다음부터 읽기
+ * keysetDate : (category_id, is_public, id) 인덱스에서 id cursor 다음부터 읽기
+ * depth는 몇번째 페이지를 읽는지. ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostsCursorBenchmark {
+
+    private static final int POSTS = 20_000;
+    private static final int MAX_LIKES_PER_POST = 20;
+    private static final int PAGE_SIZE = 20;
+
+    private static final String LEGACY_LIKE = "select p.id, count(l.id) from posts p left join likes l on l.post_id = p.id"
+            + " where p.category_id = 'A_LINE' and p.is_public = true group by p.id";
+    private static final String KEYSET = "select p.id, p.like_count from posts p where p.category_id = 'A_LINE' and p.is_public = true";
+
+    @Param({"1", "10", "100"})
+    private int depth;
+
+    private Connection connection;
+    private PreparedStatement legacyCount;
+    private PreparedStatement legacyFirst;
+    private PreparedStatement legacyNext;
+    private PreparedStatement keysetLikeFirst;
+    private PreparedStatement keysetLikeNext;
+    private PreparedStatement keysetDateFirst;
+    private PreparedStatement keysetDateNext;
+
+    //depth번째 페이지를 읽기 위한 cursor. 첫 페이지면 null
+    private Integer likeCursorCount;
+    private Long likeCursorId;
+    private Long dateCursorId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:posts_cursor_" + depth);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table posts (id bigint primary key, category_id varchar(20) not null, is_public boolean not null, like_count int not null)");
+            statement.execute("create table likes (id bigint auto_increment primary key, post_id bigint not null, user_id bigint not null)");
+            statement.execute("create index idx_posts_category_like on posts (category_id, is_public, like_count, id)");
+            statement.execute("create index idx_posts_category_id on posts (category_id, is_public, id)");
+            statement.execute("create index idx_likes_post on likes (post_id)");
+        }
+
+        Random random = new Random(42);
+        try (PreparedStatement insertPost = connection.prepareStatement("insert into posts values (?, 'A_LINE', true, ?)");
+             PreparedStatement insertLike = connection.prepareStatement("insert into likes (post_id, user_id) values (?, ?)")) {
+            for (long id = 1; id <= POSTS; id++) {
+                int likes = random.nextInt(MAX_LIKES_PER_POST + 1);
+                insertPost.setLong(1, id);
+                insertPost.setInt(2, likes);
+                insertPost.addBatch();
+                for (int user = 0; user < likes; user++) {
+                    insertLike.setLong(1, id);
+                    insertLike.setLong(2, user);
+                    insertLike.addBatch();
+                }
+            }
+            insertPost.executeBatch();
+            insertLike.executeBatch();
+        }
+
+        legacyCount = connection.prepareStatement("select count(l.id) from likes l where l.post_id = ?");
+        legacyFirst = connection.prepareStatement(LEGACY_LIKE + " order by count(l.id) desc, p.id desc limit " + PAGE_SIZE);
+        legacyNext = connection.prepareStatement(LEGACY_LIKE + " having (count(l.id) = ? and p.id < ?) or count(l.id) < ?"
+                + " order by count(l.id) desc, p.id desc limit " + PAGE_SIZE);
+        keysetLikeFirst = connection.prepareStatement(KEYSET + " order by p.like_count desc, p.id desc limit " + PAGE_SIZE);
+        keysetLikeNext = connection.prepareStatement(KEYSET + " and (p.like_count < ? or (p.like_count = ? and p.id < ?))"
+                + " order by p.like_count desc, p.id desc limit " + PAGE_SIZE);
+        keysetDateFirst = connection.prepareStatement(KEYSET + " order by p.id desc limit " + PAGE_SIZE);
+        keysetDateNext = connection.prepareStatement(KEYSET + " and p.id < ? order by p.id desc limit " + PAGE_SIZE);
+
+        //앞 페이지들을 넘겨서 depth번째 페이지의 cursor를 만든다
+        for (int page = 1; page < depth; page++) {
+            try (ResultSet rs = keysetLikePage().executeQuery()) {
+                while (rs.next()) {
+                    likeCursorId = rs.getLong(1);
+                    likeCursorCount = rs.getInt(2);
+                }
+            }
+            try (ResultSet rs = keysetDatePage().executeQuery()) {
+                while (rs.next()) {
+                    dateCursorId = rs.getLong(1);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long legacyLike() throws SQLException {
+        if (likeCursorId == null) {
+            return lastId(legacyFirst);
+        }
+        legacyCount.setLong(1, likeCursorId);
+        long cnt;
+        try (ResultSet rs = legacyCount.executeQuery()) {
+            rs.next();
+            cnt = rs.getLong(1);
+        }
+        legacyNext.setLong(1, cnt);
+        legacyNext.setLong(2, likeCursorId);
+        legacyNext.setLong(3, cnt);
+        return lastId(legacyNext);
+    }
+
+    @Benchmark
+    public long keysetLike() throws SQLException {
+        return lastId(keysetLikePage());
+    }
+
+    @Benchmark
+    public long keysetDate() throws SQLException {
+        return lastId(keysetDatePage());
+    }
+
+    private PreparedStatement keysetLikePage() throws SQLException {
+        if (likeCursorId == null) {
+            return keysetLikeFirst;
+        }
+        keysetLikeNext.setInt(1, likeCursorCount);
+        keysetLikeNext.setInt(2, likeCursorCount);
+        keysetLikeNext.setLong(3, likeCursorId);
+        return keysetLikeNext;
+    }
+
+    private PreparedStatement keysetDatePage() throws SQLException {
+        if (dateCursorId == null) {
+            return keysetDateFirst;
+        }
+        keysetDateNext.setLong(1, dateCursorId);
+        return keysetDateNext;
+    }
+
+    private static long lastId(PreparedStatement page) throws SQLException {
+        long id = 0;
+        try (ResultSet rs = page.executeQuery()) {
+            while (rs.next()) {
+                id = rs.getLong(1);
+            }
+        }
+        return id;
+    }
+}
@@ -0,0 +1,93 @@
+package com.infinity.omos.api;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 외부 API(spotify, genius, kakao) 호출에 공통으로 쓰는 HTTP 클라이언트.
+ * 커넥션 풀로 TLS 연결을 재사용하고(가능하면 HTTP/2), gzip 응답은 OkHttp가 알아서 풀어준다.
+ * 느린 외부 서버가 톰캣 스레드를 붙잡지 않도록 모든 요청에 timeout이 걸려있고, 호스트별 동시 요청 수도 제한한다.
+ */
+public class ApiHttpClient {
+
+    private static final int MAX_IDLE_CONNECTIONS = 20;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static final long CONNECT_TIMEOUT_MILLIS = 2_000;
+    private static final long READ_TIMEOUT_MILLIS = 5_000;
+    private static final long CALL_TIMEOUT_MILLIS = 10_000;
+
+    private static final int MAX_REQUESTS_PER_HOST = 32;
+    private static final long PERMIT_TIMEOUT_MILLIS = 1_000;
+
+    private static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .connectTimeout(CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+            .readTimeout(READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+            .writeTimeout(READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+            .callTimeout(CALL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+            .addInterceptor(new HostConcurrencyLimit(MAX_REQUESTS_PER_HOST, PERMIT_TIMEOUT_MILLIS))
+            .build();
+
+    private ApiHttpClient() {
+    }
+
+    /**
+     * 요청을 동기로 실행한다. 반환된 Response는 호출한 쪽에서 반드시 close 해야 한다.
+     */
+    public static Response execute(Request request) throws IOException {
+        return CLIENT.newCall(request).execute();
+    }
+
+    /**
+     * callTimeoutMillis 안에 끝나지 않으면 IOException으로 끊는다. 화면을 그리는 요청처럼 기본 call timeout보다 짧게 기다려야 할 때.
+     */
+    public static Response execute(Request request, long callTimeoutMillis) throws IOException {
+        Call call = CLIENT.newCall(request);
+        call.timeout().timeout(callTimeoutMillis, TimeUnit.MILLISECONDS);
+        return call.execute();
+    }
+
+    /**
+     * 동기 호출에는 OkHttp Dispatcher의 호스트별 제한이 적용되지 않아서 따로 세마포어로 제한한다.
+     */
+    private static class HostConcurrencyLimit implements Interceptor {
+        private final int permits;
+        private final long timeoutMillis;
+        private final ConcurrentMap<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+        private HostConcurrencyLimit(int permits, long timeoutMillis) {
+            this.permits = permits;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            String host = chain.request().url().host();
+            Semaphore semaphore = semaphores.computeIfAbsent(host, key -> new Semaphore(permits));
+            try {
+                if (!semaphore.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new IOException(host + " 동시 요청 수 초과");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(host + " 요청 대기 중 interrupt", e);
+            }
+            try {
+                return chain.proceed(chain.request());
+            } finally {
+                semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.infinity.omos.api;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * 연속 실패가 {@code failureThreshold}번 나면 열려서 {@code openMillis} 동안 요청을 바로 거절한다.
+ * 시간이 지나면 요청 하나만 흘려보내(half-open) 성공하면 닫고, 실패하면 다시 연다.
+ * 통과시킨 요청은 반드시 onSuccess, onFailure, onIgnored 중 하나로 결과를 알려야 한다.
+ * 상태는 "circuit.state" 게이지로 노출된다. (0 닫힘, 1 열림, 2 half-open)
+ */
+public class CircuitBreaker {
+
+    private enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        Metrics.gauge("circuit.state", Tags.of("name", name), this, breaker -> breaker.currentState().ordinal());
+    }
+
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;//이 요청 하나만 통과
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 상대 서버 상태와 상관없는 결과(보내지 못했거나 429). 연속 실패 수는 그대로 두고, half-open이었으면 다음 요청이 다시 시험하게 한다.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;//openedAt은 그대로이므로 다음 allowRequest가 바로 통과한다
+        }
+    }
+
+    private synchronized State currentState() {
+        return state;
+    }
+}
@@ -6,11 +6,10 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
-import java.io.BufferedReader;
+import okhttp3.Request;
+import okhttp3.Response;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
@@ -22,33 +21,29 @@ public class RequestGeniusApi {
         String reqURL = "https://genius.p.rapidapi.com/search?q=" + keyword;
 
 
-        URL url = new URL(reqURL);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
         System.out.println(keyword);
 
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-        conn.setRequestProperty("x-rapidapi-host", "genius.p.rapidapi.com");
-        conn.setRequestProperty("x-rapidapi-key", "3601641914mshb1b4a6cad9436eep140592jsn6f3011f78817");
-        conn.setDoOutput(false);
-        //결과 코드가 200이라면 성공
-        int responseCode = conn.getResponseCode();
-        System.out.println("responseCode : " + responseCode);
-
-        //요청을 통해 얻은 JSON타입의 Response 메세지 읽어오기
-
-        BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-        String line = "";
-        StringBuilder result = new StringBuilder();
-
-        while ((line = br.readLine()) != null) {
-            result.append(line);
+        Request request = new Request.Builder()
+                .url(reqURL)
+                .header("x-rapidapi-host", "genius.p.rapidapi.com")
+                .header("x-rapidapi-key", "3601641914mshb1b4a6cad9436eep140592jsn6f3011f78817")
+                .get()
+                .build();
+
+        String result;
+        try (Response httpResponse = ApiHttpClient.execute(request)) {
+            //결과 코드가 200이라면 성공
+            System.out.println("responseCode : " + httpResponse.code());
+            if (!httpResponse.isSuccessful()) {
+                throw new IOException("responseCode : " + httpResponse.code());
+            }
+            result = httpResponse.body().string();
         }
         System.out.println("response body : " + result);
 
         //Gson 라이브러리로 JSON파싱
 
-        JsonElement element = JsonParser.parseString(result.toString());
+        JsonElement element = JsonParser.parseString(result);
         JsonObject object = element.getAsJsonObject();
 
         JsonObject response = object.get("response").getAsJsonObject();
@@ -63,7 +58,5 @@ public class RequestGeniusApi {
         }
 
 
-        br.close();
-
     }
 }
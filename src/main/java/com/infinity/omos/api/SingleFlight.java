@@ -0,0 +1,107 @@
+package com.infinity.omos.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 같은 key로 동시에 들어온 요청을 하나로 합친다.
+ * 먼저 들어온 요청이 호출한 스레드에서 loader를 실행하고, 그동안 같은 key로 들어온 요청은 그 결과(또는 예외)를 같이 받는다.
+ * 요청이 끝나면 key는 바로 지워지므로 결과를 보관하지는 않는다. 보관은 캐시의 몫이다.
+ * {@link #executeAll}은 여러 key를 한번에 요청하는 경우로, 다른 요청이 이미 가져오는 중인 key는 빼고 나머지만 loader에 넘긴다.
+ * 합쳐진 요청 수는 "spotify.singleflight.coalesced" 메트릭으로 노출된다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public SingleFlight(String resource) {
+        this.coalesced = Metrics.counter("spotify.singleflight.coalesced", "resource", resource);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 이미 다른 요청(execute, executeAll)이 가져오는 중인 key는 그 결과를 기다리고, 나머지 key만 모아 loader를 한번 부른다.
+     * loader 결과에 없는 key는 반환된 Map에 들어가지 않고, 그 key를 기다리던 execute는 null을 받는다.
+     * 자기가 맡은 key를 모두 끝낸 다음에 남의 결과를 기다리므로 서로 기다리다 멈추지 않는다.
+     */
+    public Map<K, V> executeAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> owned = new HashMap<>();
+        Map<K, CompletableFuture<V>> running = new HashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+            if (existing == null) {
+                owned.put(key, future);
+            } else {
+                running.put(key, existing);
+            }
+        }
+        coalesced.increment(running.size());
+
+        Map<K, V> values = new HashMap<>();
+        if (!owned.isEmpty()) {
+            try {
+                Map<K, V> loaded = loader.apply(new ArrayList<>(owned.keySet()));
+                owned.forEach((key, future) -> future.complete(loaded.get(key)));
+                values.putAll(loaded);
+            } catch (RuntimeException | Error e) {
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+        running.forEach((key, future) -> {
+            V value = await(future);
+            if (value != null) {
+                values.put(key, value);
+            }
+        });
+        return values;
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
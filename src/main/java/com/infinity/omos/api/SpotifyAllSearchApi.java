@@ -1,375 +1,166 @@
 package com.infinity.omos.api;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import com.infinity.omos.dto.*;
 
-import java.io.BufferedReader;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
+@Slf4j
 public class SpotifyAllSearchApi {
 
+    private static final int MAX_TRACK_IDS = 50;
 
-    public static List<AlbumDto> spotifyAlbumSearchApi(String accessToken, String keyword, int offset, int limit) {
-        List<AlbumDto> albumDtos = new ArrayList<>();
-
-        keyword = URLEncoder.encode(keyword, StandardCharsets.UTF_8);
-        String reqURL = "https://api.spotify.com/v1/search?q=" + keyword + "&type=album" + "&market=KR" + "&locale=ko-KR%2Cko%3Bq%3D0.9%2Cen-US%3Bq%3D0.8%2Cen%3Bq%3D0.7" + "&offset=" + offset + "&limit=" + limit;
-
-        try {
-            URL url = new URL(reqURL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
+    private static final int MAX_ATTEMPTS = 2;
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+    private static final long NO_CALL_TIMEOUT = 0;
 
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-
-
-            conn.setDoOutput(true);
-            //결과 코드가 200이라면 성공
-            int responseCode = conn.getResponseCode();
-            System.out.println("responseCode : " + responseCode);
-
-            //요청을 통해 얻은 JSON타입의 Response 메세지 읽어오기
-
-            BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-            String line = "";
-            StringBuilder result = new StringBuilder();
-
-            while ((line = br.readLine()) != null) {
-                result.append(line);
-            }
+    //연속 5번 실패하면 30초 동안 spotify 요청을 보내지 않는다
+    private static final CircuitBreaker CIRCUIT_BREAKER = new CircuitBreaker("spotify", 5, 30_000);
 
+    //같은 리소스에 대한 동시 요청은 spotify에 한번만 보낸다. 결과 List는 합쳐진 요청들이 공유한다.
+    private static final SingleFlight<String, List<AlbumTrackDto>> ALBUM_TRACKS = new SingleFlight<>("album-tracks");
+    private static final SingleFlight<String, List<HotTrackDto>> TOP_TRACKS = new SingleFlight<>("top-tracks");
+    private static final SingleFlight<String, List<AlbumDto>> ARTIST_ALBUMS = new SingleFlight<>("artist-albums");
 
-            //Gson 라이브러리로 JSON파싱
-
-            JsonElement element = JsonParser.parseString(result.toString());
-            JsonObject object = element.getAsJsonObject();
-            albumFrame(object, albumDtos);
-
-            br.close();
-
-        } catch (IOException e) {
-            System.out.println("Error: " + e.getMessage());
+    public static List<AlbumDto> spotifyAlbumSearchApi(String accessToken, String keyword, int offset, int limit) {
+        try {
+            return SpotifySearchCache.get("album", keyword, offset, limit,
+                    (query, blockOffset) -> requestSearchApi(accessToken, query, "album", blockOffset, SpotifyJsonReader::readSearchAlbums));
+        } catch (SpotifyApiException e) {
+            log.warn("spotify 앨범 검색 실패 status={}: {}", e.getStatusCode(), e.getMessage());
+            return new ArrayList<>();
         }
-
-        return albumDtos;
-
     }
 
     public static List<TrackDto> spotifyTrackSearchApi(String accessToken, String keyword, int offset, int limit, int type) {
-
-        List<TrackDto> trackDtos = new ArrayList<>();
-
-        keyword = URLEncoder.encode(keyword, StandardCharsets.UTF_8);
-        String reqURL = "https://api.spotify.com/v1/search?q=" + keyword + "&type=track" + "&market=KR" + "&locale=ko-KR%2Cko%3Bq%3D0.9%2Cen-US%3Bq%3D0.8%2Cen%3Bq%3D0.7" + "&offset=" + offset + "&limit=" + limit;
-
         try {
-            URL url = new URL(reqURL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-
-
-            conn.setDoOutput(true);
-            //결과 코드가 200이라면 성공
-            int responseCode = conn.getResponseCode();
-            System.out.println("responseCode : " + responseCode);
-
-            //요청을 통해 얻은 JSON타입의 Response 메세지 읽어오기
-
-            BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-            String line = "";
-            StringBuilder result = new StringBuilder();
-
-            while ((line = br.readLine()) != null) {
-                result.append(line);
-            }
-
-
-            //Gson 라이브러리로 JSON파싱
-
-            JsonElement element = JsonParser.parseString(result.toString());
-            JsonObject object = element.getAsJsonObject();
-
-            if(type==1){
-                trackFrameOnTrackName(object,trackDtos);
-            }
-            else {
-                trackFrame(object, trackDtos);
+            if (type == 1) {
+                return SpotifySearchCache.get("track-name", keyword, offset, limit,
+                        (query, blockOffset) -> requestSearchApi(accessToken, query, "track", blockOffset, SpotifyJsonReader::readSearchTrackNames));
             }
-
-
-            br.close();
-
-        } catch (IOException e) {
-            System.out.println("Error: " + e.getMessage());
+            return SpotifySearchCache.get("track", keyword, offset, limit,
+                    (query, blockOffset) -> requestSearchApi(accessToken, query, "track", blockOffset, SpotifyJsonReader::readSearchTracks));
+        } catch (SpotifyApiException e) {
+            log.warn("spotify 노래 검색 실패 status={}: {}", e.getStatusCode(), e.getMessage());
+            return new ArrayList<>();
         }
-
-        return trackDtos;
-
     }
 
     public static List<ArtistDto> spotifyArtistSearchApi(String accessToken, String keyword, int offset, int limit) {
-        List<ArtistDto> artistDtos = new ArrayList<>();
-
-        keyword = URLEncoder.encode(keyword, StandardCharsets.UTF_8);
-        String reqURL = "https://api.spotify.com/v1/search?q=" + keyword + "&type=artist" + "&market=KR" + "&locale=ko-KR%2Cko%3Bq%3D0.9%2Cen-US%3Bq%3D0.8%2Cen%3Bq%3D0.7" + "&offset=" + offset + "&limit=" + limit;
-
         try {
-            URL url = new URL(reqURL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-
-
-            conn.setDoOutput(true);
-            //결과 코드가 200이라면 성공
-            int responseCode = conn.getResponseCode();
-            System.out.println("responseCode : " + responseCode);
-
-            //요청을 통해 얻은 JSON타입의 Response 메세지 읽어오기
-
-            BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-            String line = "";
-            StringBuilder result = new StringBuilder();
-
-            while ((line = br.readLine()) != null) {
-                result.append(line);
-            }
-            System.out.println(result.toString());
-
-            //Gson 라이브러리로 JSON파싱
-
-            JsonElement element = JsonParser.parseString(result.toString());
-            JsonObject object = element.getAsJsonObject();
-
-            artistsFrame(object, artistDtos);
-            br.close();
-        } catch (IOException e) {
-            System.out.println("Error: " + e.getMessage());
+            return SpotifySearchCache.get("artist", keyword, offset, limit,
+                    (query, blockOffset) -> requestSearchApi(accessToken, query, "artist", blockOffset, SpotifyJsonReader::readSearchArtists));
+        } catch (SpotifyApiException e) {
+            log.warn("spotify 아티스트 검색 실패 status={}: {}", e.getStatusCode(), e.getMessage());
+            return new ArrayList<>();
         }
+    }
 
-        return artistDtos;
+    /**
+     * 검색결과 한 블록(SpotifySearchCache.BLOCK_SIZE개)을 요청한다. 실패한 결과는 캐시되면 안되므로 SpotifyApiException을 그대로 던진다.
+     */
+    private static <T> List<T> requestSearchApi(String accessToken, String keyword, String type, int offset, SpotifyJsonReader.ValueReader<List<T>> valueReader) {
+        keyword = URLEncoder.encode(keyword, StandardCharsets.UTF_8);
+        String reqURL = "https://api.spotify.com/v1/search?q=" + keyword + "&type=" + type + "&market=KR" + "&locale=ko-KR%2Cko%3Bq%3D0.9%2Cen-US%3Bq%3D0.8%2Cen%3Bq%3D0.7" + "&offset=" + offset + "&limit=" + SpotifySearchCache.BLOCK_SIZE;
 
+        return requestSpotifyApi(accessToken, reqURL, valueReader);
     }
 
     public static TrackDto getTrackApi(String accessToken, String id) {
-        TrackDto trackDto = new TrackDto();
+        return SpotifyTrackCache.get(id, trackId -> requestTrackApi(accessToken, trackId));
+    }
 
+    private static TrackDto requestTrackApi(String accessToken, String id) {
         String reqURL = "https://api.spotify.com/v1/tracks/" + id + "?market=KR" + "&locale=ko-KR%2Cko%3Bq%3D0.9%2Cen-US%3Bq%3D0.8%2Cen%3Bq%3D0.7";
 
-        try {
-            URL url = new URL(reqURL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-
-
-            conn.setDoOutput(true);
-
-            //결과 코드가 200이라면 성공
-            int responseCode = conn.getResponseCode();
-            System.out.println("responseCode : " + responseCode);
-
-            //요청을 통해 얻은 JSON타입의 Response 메세지 읽어오기
-
-            BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-            String line = "";
-            StringBuilder result = new StringBuilder();
-
-            while ((line = br.readLine()) != null) {
-                result.append(line);
-            }
+        return requestSpotifyApi(accessToken, reqURL, SpotifyJsonReader::readTrack);
+    }
 
-            //Gson 라이브러리로 JSON파싱
+    /**
+     * 여러 track을 한번에 조회한다. id는 중복 제거 후 캐시에 없는 것만 50개씩 묶어 GET /v1/tracks?ids= 로 요청한다.
+     * Spotify에 없는 id는 결과 Map에 들어가지 않는다.
+     */
+    public static Map<String, TrackDto> getTracks(String accessToken, Collection<String> ids) {
+        return getTracks(accessToken, ids, NO_CALL_TIMEOUT);
+    }
 
+    /**
+     * 50개씩 나눈 요청 전체를 timeoutMillis 안에 끝내야 한다. 요청마다 남은 시간만 주고, 남은 시간이 없으면 SpotifyApiException
+     */
+    public static Map<String, TrackDto> getTracks(String accessToken, Collection<String> ids, long timeoutMillis) {
+        return SpotifyTrackCache.getAll(new LinkedHashSet<>(ids), missing -> requestTracksApi(accessToken, missing, timeoutMillis));
+    }
 
-            JsonElement element = JsonParser.parseString(result.toString());
-            JsonObject object = element.getAsJsonObject();
+    private static Map<String, TrackDto> requestTracksApi(String accessToken, Iterable<? extends String> ids, long timeoutMillis) {
+        Map<String, TrackDto> trackDtos = new HashMap<>();
+        long deadline = timeoutMillis == NO_CALL_TIMEOUT ? NO_CALL_TIMEOUT : System.currentTimeMillis() + timeoutMillis;
 
-            JsonObject album = object.get("album").getAsJsonObject();
-            trackDto.setAlbumId(album.get("id").getAsString());
-            JsonArray imageList = album.get("images").getAsJsonArray();
-            if (imageList.isEmpty()) {
-                trackDto.setAlbumImageUrl(null);
-            } else {
-                trackDto.setAlbumImageUrl(imageList.get(1).getAsJsonObject().get("url").getAsString());
-            }
-            trackDto.setAlbumTitle(album.get("name").getAsString());
-            trackDto.setReleaseDate(album.get("release_date").getAsString());
-
-            JsonArray artists = object.get("artists").getAsJsonArray();
-            List<Artists> artists1 = new ArrayList<>();
-            for (int j = 0; j < artists.size(); j++) {
-                Artists artists2 = new Artists();
-                artists2.setArtistName(artists.get(j).getAsJsonObject().get("name").getAsString());
-                artists2.setArtistId(artists.get(j).getAsJsonObject().get("id").getAsString());
-                artists1.add(artists2);
+        List<String> chunk = new ArrayList<>(MAX_TRACK_IDS);
+        for (String id : ids) {
+            chunk.add(id);
+            if (chunk.size() == MAX_TRACK_IDS) {
+                trackDtos.putAll(requestTracksChunk(accessToken, chunk, remainingMillis(deadline)));
+                chunk.clear();
             }
-            trackDto.setArtists(artists1);
-
-            trackDto.setMusicTitle(object.get("name").getAsString());
-            trackDto.setMusicId(object.get("id").getAsString());
+        }
+        if (!chunk.isEmpty()) {
+            trackDtos.putAll(requestTracksChunk(accessToken, chunk, remainingMillis(deadline)));
+        }
+        return trackDtos;
+    }
 
-            br.close();
-        } catch (IOException e) {
-            throw new RuntimeException("Error: spotifyAPI오류 " + e.getMessage());
+    private static long remainingMillis(long deadline) {
+        if (deadline == NO_CALL_TIMEOUT) {
+            return NO_CALL_TIMEOUT;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            throw new SpotifyApiException("timeout", 0);
         }
+        return remaining;
+    }
 
-        return trackDto;
+    private static Map<String, TrackDto> requestTracksChunk(String accessToken, List<String> ids, long callTimeoutMillis) {
+        String reqURL = "https://api.spotify.com/v1/tracks?ids=" + String.join(",", ids) + "&market=KR" + "&locale=ko-KR%2Cko%3Bq%3D0.9%2Cen-US%3Bq%3D0.8%2Cen%3Bq%3D0.7";
+
+        return requestSpotifyApi(accessToken, reqURL, SpotifyJsonReader::readTracks, callTimeoutMillis);
     }
 
     public static List<AlbumTrackDto> getAlbumTrackApi(String accessToken, String id) {
-        List<AlbumTrackDto> albumTrackDtos = new ArrayList<>();
+        return ALBUM_TRACKS.execute(id, () -> requestAlbumTrackApi(accessToken, id));
+    }
 
+    private static List<AlbumTrackDto> requestAlbumTrackApi(String accessToken, String id) {
         String reqURL = "https://api.spotify.com/v1/albums/" + id + "/tracks?market=KR" + "&locale=ko-KR%2Cko%3Bq%3D0.9%2Cen-US%3Bq%3D0.8%2Cen%3Bq%3D0.7";
 
-        try {
-            URL url = new URL(reqURL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-
-
-            conn.setDoOutput(true);
-
-            //결과 코드가 200이라면 성공
-            int responseCode = conn.getResponseCode();
-            System.out.println("responseCode : " + responseCode);
-
-            //요청을 통해 얻은 JSON타입의 Response 메세지 읽어오기
-
-            BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-            String line = "";
-            StringBuilder result = new StringBuilder();
-
-            while ((line = br.readLine()) != null) {
-                result.append(line);
-            }
-
-            //Gson 라이브러리로 JSON파싱
-
-
-            JsonElement element = JsonParser.parseString(result.toString());
-            JsonObject object = element.getAsJsonObject();
-
-            JsonArray items = object.get("items").getAsJsonArray();
-            for (int i = 0; i < items.size(); i++) {
-                AlbumTrackDto albumTrackDto = new AlbumTrackDto();
-                JsonObject item = items.get(i).getAsJsonObject();
-                JsonArray artists = item.get("artists").getAsJsonArray();
-                List<Artists> artistsList = new ArrayList<>();
-                for (int j = 0; j < artists.size(); j++) {
-                    Artists artist = new Artists();
-                    artist.setArtistName(artists.get(j).getAsJsonObject().get("name").getAsString());
-                    artist.setArtistId(artists.get(j).getAsJsonObject().get("id").getAsString());
-                    artistsList.add(artist);
-                }
-                albumTrackDto.setArtists(artistsList);
-                albumTrackDto.setMusicId(item.get("id").getAsString());
-                albumTrackDto.setMusicTitle(item.get("name").getAsString());
-
-                albumTrackDtos.add(albumTrackDto);
-
-            }
-
-
-            br.close();
-        } catch (IOException e) {
-            throw new RuntimeException("Error: spotifyAPI오류 " + e.getMessage());
-        }
-
-        return albumTrackDtos;
+        return requestSpotifyApi(accessToken, reqURL, SpotifyJsonReader::readAlbumTracks);
     }
 
     public static List<HotTrackDto> getHotTracksApi(String accessToken, String id) {
+        return TOP_TRACKS.execute(id, () -> requestHotTracksApi(accessToken, id));
+    }
+
+    private static List<HotTrackDto> requestHotTracksApi(String accessToken, String id) {
         List<HotTrackDto> hotTrackDtos = new ArrayList<>();
 
         String reqURL = "https://api.spotify.com/v1/artists/" + id + "/top-tracks?market=KR" + "&locale=ko-KR%2Cko%3Bq%3D0.9%2Cen-US%3Bq%3D0.8%2Cen%3Bq%3D0.7";
 
         try {
-            URL url = new URL(reqURL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-
-
-            conn.setDoOutput(true);
-
-            //결과 코드가 200이라면 성공
-            int responseCode = conn.getResponseCode();
-            System.out.println("responseCode : " + responseCode);
-
-            //요청을 통해 얻은 JSON타입의 Response 메세지 읽어오기
-
-            BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-            String line = "";
-            StringBuilder result = new StringBuilder();
-
-            while ((line = br.readLine()) != null) {
-                result.append(line);
-            }
-
-            //Gson 라이브러리로 JSON파싱
-
-
-            JsonElement element = JsonParser.parseString(result.toString());
-            JsonObject object = element.getAsJsonObject();
-
-            JsonArray tracks = object.get("tracks").getAsJsonArray();
-            for (int i = 0; i < tracks.size(); i++) {
-                HotTrackDto hotTrackDto = new HotTrackDto();
-                JsonObject item = tracks.get(i).getAsJsonObject();
-                JsonObject album = item.getAsJsonObject("album");
-                JsonArray images = album.get("images").getAsJsonArray();
-                if (images.isEmpty()) {
-                    hotTrackDto.setAlbumImageUrl(null);
-                } else {
-                    hotTrackDto.setAlbumImageUrl(images.get(0).getAsJsonObject().get("url").getAsString());
-                }
-
-                JsonArray artists = item.getAsJsonArray("artists");
-                List<String> artistName = new ArrayList<>();
-                for (int j = 0; j < artists.size(); j++) {
-                    artistName.add(artists.get(j).getAsJsonObject().get("name").getAsString());
-                }
-                hotTrackDto.setArtistName(artistName);
-
-                hotTrackDto.setMusicTitle(item.get("name").getAsString());
-                hotTrackDto.setMusicId(item.get("id").getAsString());
-
-
-                hotTrackDtos.add(hotTrackDto);
-
-            }
-
-
-            br.close();
-        } catch (IOException e) {
-            System.out.println("Error: spotifyAPI오류 " + e.getMessage());
+            hotTrackDtos = requestSpotifyApi(accessToken, reqURL, SpotifyJsonReader::readHotTracks);
+        } catch (SpotifyApiException e) {
+            log.warn("spotify 인기곡 조회 실패 artistId={} status={}: {}", id, e.getStatusCode(), e.getMessage());
         }
 
         return hotTrackDtos;
@@ -377,208 +168,93 @@ public class SpotifyAllSearchApi {
     }
 
     public static List<AlbumDto> getArtistsAlbum(String accessToken, String id, int offset, int limit) {
+        return ARTIST_ALBUMS.execute(id + ":" + offset + ":" + limit, () -> requestArtistsAlbum(accessToken, id, offset, limit));
+    }
+
+    private static List<AlbumDto> requestArtistsAlbum(String accessToken, String id, int offset, int limit) {
         List<AlbumDto> albumDtoList = new ArrayList<>();
 
         String reqURL = "https://api.spotify.com/v1/artists/" + id + "/albums?market=KR" + "&locale=ko-KR%2Cko%3Bq%3D0.9%2Cen-US%3Bq%3D0.8%2Cen%3Bq%3D0.7" + "&offset=" + offset + "&limit=" + limit;
 
         try {
-            URL url = new URL(reqURL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-
-
-            conn.setDoOutput(true);
-
-            //결과 코드가 200이라면 성공
-            int responseCode = conn.getResponseCode();
-            System.out.println("responseCode : " + responseCode);
-
-            //요청을 통해 얻은 JSON타입의 Response 메세지 읽어오기
-
-            BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-            String line = "";
-            StringBuilder result = new StringBuilder();
-
-            while ((line = br.readLine()) != null) {
-                result.append(line);
-            }
-
-            //Gson 라이브러리로 JSON파싱
-
-
-            JsonElement element = JsonParser.parseString(result.toString());
-            JsonObject object = element.getAsJsonObject();
-
-            JsonArray items = object.get("items").getAsJsonArray();
-            for (int i = 0; i < items.size(); i++) {
-                AlbumDto albumDto = new AlbumDto();
-                JsonObject item = items.get(i).getAsJsonObject();
-
-                JsonArray images = item.getAsJsonArray("images");
-                if (images.isEmpty()) {
-                    albumDto.setAlbumImageUrl(null);
-                } else {
-                    albumDto.setAlbumImageUrl(images.get(0).getAsJsonObject().get("url").getAsString());
-                }
-
-                JsonArray artists = item.getAsJsonArray("artists");
-                List<Artists> artistName = new ArrayList<>();
-                for (int j = 0; j < artists.size(); j++) {
-                    Artists artist = new Artists();
-                    artist.setArtistName(artists.get(j).getAsJsonObject().get("name").getAsString());
-                    artist.setArtistId(artists.get(j).getAsJsonObject().get("id").getAsString());
-                    artistName.add(artist);
-                }
-                albumDto.setArtists(artistName);
-
-                albumDto.setAlbumTitle(item.get("name").getAsString());
-                albumDto.setAlbumId(item.get("id").getAsString());
-                albumDto.setReleaseDate(item.get("release_date").getAsString());
-
-
-                albumDtoList.add(albumDto);
-
-            }
-
-
-            br.close();
-        } catch (IOException e) {
-            System.out.println("Error: spotifyAPI오류 " + e.getMessage());
+            albumDtoList = requestSpotifyApi(accessToken, reqURL, SpotifyJsonReader::readArtistAlbums);
+        } catch (SpotifyApiException e) {
+            log.warn("spotify 아티스트 앨범 조회 실패 artistId={} status={}: {}", id, e.getStatusCode(), e.getMessage());
         }
 
         return albumDtoList;
 
     }
 
-    public static List<TrackDto> trackFrame(JsonObject object, List<TrackDto> trackDtos) {
-
-        JsonObject tracks = object.get("tracks").getAsJsonObject();
-        JsonArray items = tracks.get("items").getAsJsonArray();
-
-
-        for (int i = 0; i < items.size(); i++) {
-            TrackDto trackDto = new TrackDto();
-            JsonObject album = items.get(i).getAsJsonObject().get("album").getAsJsonObject();
-            JsonArray artists = album.get("artists").getAsJsonArray();
-            List<Artists> artists1 = new ArrayList<>();
-            for (int j = 0; j < artists.size(); j++) {
-                Artists artists2 = new Artists();
-                artists2.setArtistName(artists.get(j).getAsJsonObject().get("name").getAsString());
-                artists2.setArtistId(artists.get(j).getAsJsonObject().get("id").getAsString());
-                artists1.add(artists2);
-            }
-            trackDto.setArtists(artists1);
-            trackDto.setAlbumId(album.get("id").getAsString());
-
-            JsonArray images = album.get("images").getAsJsonArray();
-            if (images.isEmpty()) {
-                trackDto.setAlbumImageUrl(null);
-            } else {
-                trackDto.setAlbumImageUrl(images.get(1).getAsJsonObject().get("url").getAsString());
-            }
-
-            trackDto.setAlbumTitle(album.get("name").getAsString());
-            trackDto.setReleaseDate(album.get("release_date").getAsString());
-
-
-            trackDto.setMusicId(items.get(i).getAsJsonObject().get("id").getAsString());
-            trackDto.setMusicTitle(items.get(i).getAsJsonObject().get("name").getAsString());
-            trackDtos.add(trackDto);
-
-
-        }
-
-        return trackDtos;
-    }
-
-    public static List<TrackDto> trackFrameOnTrackName(JsonObject object, List<TrackDto> trackDtos) {
-
-        JsonObject tracks = object.get("tracks").getAsJsonObject();
-        JsonArray items = tracks.get("items").getAsJsonArray();
-
-
-        for (int i = 0; i < items.size(); i++) {
-            TrackDto trackDto = new TrackDto();
-            trackDto.setMusicTitle(items.get(i).getAsJsonObject().get("name").getAsString());
-            trackDtos.add(trackDto);
-
-
-        }
-
-        return trackDtos;
+    /**
+     * 응답 body를 String으로 모으지 않고 스트림에서 바로 DTO로 읽는다.
+     * 요청 전에 circuit breaker, 토큰 버킷 순으로 거치고, 429는 Retry-After가 짧으면 한번 기다렸다 다시 요청한다.
+     * 실패는 모두 {@link SpotifyApiException}으로 던진다.
+     */
+    private static <T> T requestSpotifyApi(String accessToken, String reqURL, SpotifyJsonReader.ValueReader<T> valueReader) {
+        return requestSpotifyApi(accessToken, reqURL, valueReader, NO_CALL_TIMEOUT);
     }
 
-    public static List<ArtistDto> artistsFrame(JsonObject object, List<ArtistDto> artistDtos) {
-
-        JsonObject artists = object.get("artists").getAsJsonObject();
-        JsonArray items = artists.get("items").getAsJsonArray();
-
-
-        for (int i = 0; i < items.size(); i++) {
-            ArtistDto artistDto = new ArtistDto();
-            JsonArray genres = items.get(i).getAsJsonObject().get("genres").getAsJsonArray();
-            List<String> genre = new ArrayList<>();
-            for (int j = 0; j < genres.size(); j++) {
-                genre.add(genres.get(j).getAsString());
+    //callTimeoutMillis가 NO_CALL_TIMEOUT이면 ApiHttpClient의 기본 timeout을 쓴다
+    private static <T> T requestSpotifyApi(String accessToken, String reqURL, SpotifyJsonReader.ValueReader<T> valueReader, long callTimeoutMillis) {
+        Request request = new Request.Builder()
+                .url(reqURL)
+                .header("Authorization", "Bearer " + accessToken)
+                .get()
+                .build();
+
+        for (int attempt = 1; ; attempt++) {
+            //circuit이 열려 있으면 토큰을 쓰거나 기다리지 않고 바로 실패한다
+            if (!CIRCUIT_BREAKER.allowRequest()) {
+                throw new SpotifyApiException("circuit open", 503);
             }
-            artistDto.setGenres(genre);
-
-
-            JsonArray imagesArray = items.get(i).getAsJsonObject().get("images").getAsJsonArray();
-            if (imagesArray.isEmpty()) {
-                artistDto.setArtistImageUrl(null);
-            } else {
-                artistDto.setArtistImageUrl(imagesArray.get(0).getAsJsonObject().get("url").getAsString());
+            if (!SpotifyRateLimiter.tryAcquire()) {
+                CIRCUIT_BREAKER.onIgnored();
+                throw new SpotifyApiException("요청 한도 초과", 429);
             }
 
+            try (Response response = callTimeoutMillis == NO_CALL_TIMEOUT
+                    ? ApiHttpClient.execute(request) : ApiHttpClient.execute(request, callTimeoutMillis)) {
+                int code = response.code();
+                if (code == 429) {
+                    long retryAfter = retryAfterSeconds(response);
+                    //요청 속도 문제이므로 circuit breaker 실패로 세지 않고 rate limiter만 멈춘다
+                    SpotifyRateLimiter.pause(retryAfter);
+                    CIRCUIT_BREAKER.onIgnored();
+                    if (attempt < MAX_ATTEMPTS && retryAfter * 1000 <= SpotifyRateLimiter.MAX_WAIT_MILLIS) {
+                        continue;//다음 tryAcquire에서 Retry-After만큼 기다린다
+                    }
+                    throw new SpotifyApiException("responseCode : " + code, code);
+                }
+                if (code >= 500) {
+                    CIRCUIT_BREAKER.onFailure();
+                    throw new SpotifyApiException("responseCode : " + code, code);
+                }
+                //4xx는 요청 문제이므로 spotify는 정상으로 본다
+                CIRCUIT_BREAKER.onSuccess();
 
-            artistDto.setArtistId(items.get(i).getAsJsonObject().get("id").getAsString());
-            artistDto.setArtistName(items.get(i).getAsJsonObject().get("name").getAsString());
-            artistDtos.add(artistDto);
-
-
+                //결과 코드가 200이라면 성공
+                if (!response.isSuccessful()) {
+                    throw new SpotifyApiException("responseCode : " + code, code);
+                }
+                try (JsonReader reader = new JsonReader(response.body().charStream())) {
+                    return valueReader.read(reader);
+                } catch (IllegalStateException e) {//예상과 다른 JSON 구조
+                    throw new SpotifyApiException("spotify 응답 파싱 실패 " + e.getMessage(), e);
+                }
+            } catch (IOException e) {
+                CIRCUIT_BREAKER.onFailure();
+                throw new SpotifyApiException(e.getMessage(), e);
+            }
         }
-        return artistDtos;
     }
 
-    public static List<AlbumDto> albumFrame(JsonObject object, List<AlbumDto> albumDtos) {
-        JsonObject albums = object.get("albums").getAsJsonObject();
-        JsonArray items = albums.get("items").getAsJsonArray();
-
-
-        for (int i = 0; i < items.size(); i++) {
-            AlbumDto albumDto = new AlbumDto();
-            JsonArray artists = items.get(i).getAsJsonObject().get("artists").getAsJsonArray();
-            List<Artists> artistsList = new ArrayList<>();
-            for (int j = 0; j < artists.size(); j++) {
-                JsonObject artist = artists.get(j).getAsJsonObject();
-                artistsList.add(
-                        Artists.builder()
-                                .artistId(artist.get("id").getAsString())
-                                .artistName(artist.get("name").getAsString())
-                                .build()
-                );
-            }
-            albumDto.setArtists(artistsList);
-
-
-            JsonArray imagesList = items.get(i).getAsJsonObject().get("images").getAsJsonArray();
-            if (imagesList.isEmpty()) {
-                albumDto.setAlbumImageUrl(null);
-            } else {
-                albumDto.setAlbumImageUrl(imagesList.get(1).getAsJsonObject().get("url").getAsString());
-            }
-
-
-            albumDto.setAlbumId(items.get(i).getAsJsonObject().get("id").getAsString());
-            albumDto.setAlbumTitle(items.get(i).getAsJsonObject().get("name").getAsString());
-            albumDto.setReleaseDate(items.get(i).getAsJsonObject().get("release_date").getAsString());
-            albumDtos.add(albumDto);
-
+    private static long retryAfterSeconds(Response response) {
+        String retryAfter = response.header("Retry-After");
+        try {
+            return retryAfter == null ? DEFAULT_RETRY_AFTER_SECONDS : Math.max(0, Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            return DEFAULT_RETRY_AFTER_SECONDS;
         }
-        return albumDtos;
     }
 }
@@ -1,22 +1,39 @@
 package com.infinity.omos.api;
 
 
+import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.core5.http.ParseException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import se.michaelthelin.spotify.SpotifyApi;
 import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
 import se.michaelthelin.spotify.model_objects.credentials.ClientCredentials;
-import se.michaelthelin.spotify.requests.authorization.client_credentials.ClientCredentialsRequest;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.concurrent.CancellationException;
+import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Spotify client credentials 토큰을 한 곳에서 관리한다.
+ * 토큰은 만료 전까지 재사용되고, 만료 {@link #REFRESH_MARGIN_SECONDS}초 전에 백그라운드에서 미리 갱신된다.
+ * 갱신 요청은 동시에 하나만 진행된다.
+ */
+@Slf4j
 @Component
 public class SpotifyApiAuthorization {
 
+    private static final long REFRESH_MARGIN_SECONDS = 300;
+    private static final long EXPIRY_SKEW_SECONDS = 30;
+    private static final long RETRY_DELAY_SECONDS = 10;
+
     @Value("${spotify.clientId}")
     private String clientId;
 
@@ -25,58 +42,102 @@ public class SpotifyApiAuthorization {
 
     private SpotifyApi spotifyApi;
 
-   /* public SpotifyApiAuthorization(@Value("${spotify.clientId}") String clientId, @Value("${spotify.clientSecret}") String clientSecret) {
-        this.clientId = clientId;
-        this.clientSecret = clientSecret;
+    private volatile AccessToken token;
+
+    private final AtomicReference<CompletableFuture<AccessToken>> inFlight = new AtomicReference<>();
 
-    }*/
+    // scheduler 스레드에서만 접근한다
+    private ScheduledFuture<?> nextRefresh;
 
-   /* private static final SpotifyApi spotifyApi = new SpotifyApi.Builder()
-            .setClientId(clientId)
-            .setClientSecret(clientSecret)
-            .build();*/
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "spotify-token-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        spotifyApi = new SpotifyApi.Builder()
+                .setClientId(clientId)
+                .setClientSecret(clientSecret)
+                .build();
+        refresh();
+    }
 
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
 
-    public SpotifyApi clientCredentials_Sync() {
+    /**
+     * 현재 유효한 access token을 반환한다.
+     * 토큰이 아직 발급되지 않았거나 갱신에 계속 실패해 만료된 경우에만 진행 중인 갱신을 기다린다.
+     */
+    public String currentToken() {
+        AccessToken current = token;
+        if (current != null && !current.isExpired()) {
+            return current.getValue();
+        }
         try {
-            spotifyApi = new SpotifyApi.Builder()
-                    .setClientId(clientId)
-                    .setClientSecret(clientSecret)
-                    .build();
-            ClientCredentialsRequest clientCredentialsRequest = spotifyApi.clientCredentials()
-                    .build();
-            final ClientCredentials clientCredentials = clientCredentialsRequest.execute();
-
-            // Set access token for further "spotifyApi" object usage
-            spotifyApi.setAccessToken(clientCredentials.getAccessToken());
-
-            System.out.println("Expires in: " + clientCredentials.getExpiresIn());
-        } catch (IOException | SpotifyWebApiException | ParseException e) {
-            System.out.println("Error: " + e.getMessage());
+            return refresh().join().getValue();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Error: spotify 인증오류 " + e.getCause().getMessage());
         }
-        return spotifyApi;
     }
 
-    public SpotifyApi clientCredentials_Async() {
+    private CompletableFuture<AccessToken> refresh() {
+        while (true) {
+            CompletableFuture<AccessToken> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<AccessToken> future = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, future)) {
+                scheduler.execute(() -> issue(future));
+                return future;
+            }
+        }
+    }
+
+    private void issue(CompletableFuture<AccessToken> future) {
         try {
-            ClientCredentialsRequest clientCredentialsRequest = spotifyApi.clientCredentials()
-                    .build();
-            final CompletableFuture<ClientCredentials> clientCredentialsFuture = clientCredentialsRequest.executeAsync();
+            final ClientCredentials clientCredentials = spotifyApi.clientCredentials().build().execute();
+            AccessToken issued = new AccessToken(clientCredentials.getAccessToken(), clientCredentials.getExpiresIn());
+            token = issued;
+            inFlight.set(null);
+            future.complete(issued);
+
+            scheduleRefresh(Math.max(RETRY_DELAY_SECONDS, clientCredentials.getExpiresIn() - REFRESH_MARGIN_SECONDS));
+        } catch (IOException | SpotifyWebApiException | ParseException | RuntimeException e) {
+            log.warn("spotify 토큰 갱신 실패, {}초 후 재시도: {}", RETRY_DELAY_SECONDS, e.getMessage());
+            inFlight.set(null);
+            future.completeExceptionally(e);
+            scheduleRefresh(RETRY_DELAY_SECONDS);
+        }
+    }
 
-            // Thread free to do other tasks...
+    private void scheduleRefresh(long delaySeconds) {
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+        nextRefresh = scheduler.schedule(this::refresh, delaySeconds, TimeUnit.SECONDS);
+    }
 
-            // Example Only. Never block in production code.
-            final ClientCredentials clientCredentials = clientCredentialsFuture.join();
+    private static class AccessToken {
+        private final String value;
+        private final Instant expiresAt;
 
-            // Set access token for further "spotifyApi" object usage
-            spotifyApi.setAccessToken(clientCredentials.getAccessToken());
+        private AccessToken(String value, int expiresIn) {
+            this.value = value;
+            this.expiresAt = Instant.now().plusSeconds(expiresIn - EXPIRY_SKEW_SECONDS);
+        }
 
-            System.out.println("Expires in: " + clientCredentials.getExpiresIn());
-        } catch (CompletionException e) {
-            System.out.println("Error: " + e.getCause().getMessage());
-        } catch (CancellationException e) {
-            System.out.println("Async operation cancelled.");
+        private String getValue() {
+            return value;
+        }
+
+        private boolean isExpired() {
+            return !Instant.now().isBefore(expiresAt);
         }
-        return spotifyApi;
     }
 }
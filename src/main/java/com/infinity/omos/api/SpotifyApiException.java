@@ -0,0 +1,24 @@
+package com.infinity.omos.api;
+
+/**
+ * spotify 요청 실패. 응답을 받지 못했거나(timeout, 연결 실패, 요청 차단) 2xx가 아닌 응답을 받은 경우.
+ * 응답을 받지 못했으면 statusCode는 0이다.
+ */
+public class SpotifyApiException extends RuntimeException {
+
+    private final int statusCode;
+
+    public SpotifyApiException(String message, int statusCode) {
+        super("Error: spotifyAPI오류 " + message);
+        this.statusCode = statusCode;
+    }
+
+    public SpotifyApiException(String message, Throwable cause) {
+        super("Error: spotifyAPI오류 " + message, cause);
+        this.statusCode = 0;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
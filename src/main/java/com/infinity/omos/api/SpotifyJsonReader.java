@@ -0,0 +1,438 @@
+package com.infinity.omos.api;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.infinity.omos.dto.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spotify 응답을 JsonReader로 토큰 단위로 읽어 바로 DTO에 채운다.
+ * 응답 전체를 String이나 JsonObject 트리로 만들지 않고, 쓰지 않는 필드는 skipValue로 건너뛴다.
+ */
+public class SpotifyJsonReader {
+
+    //검색결과, 트랙의 앨범 이미지는 두번째(300px), 나머지는 첫번째(640px) 이미지를 쓴다
+    private static final int MEDIUM_IMAGE = 1;
+    private static final int LARGE_IMAGE = 0;
+
+    @FunctionalInterface
+    public interface ValueReader<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+
+    private SpotifyJsonReader() {
+    }
+
+    /**
+     * GET /v1/tracks/{id}
+     * market을 주면 재생할 수 없는 트랙은 다른 id의 트랙으로 바뀌어(relinking) 내려오고 원래 id는 linked_from에 있다.
+     * 저장된 노래와 맞춰야 하므로 그때는 요청한 원래 id를 musicId로 쓴다.
+     */
+    public static TrackDto readTrack(JsonReader reader) throws IOException {
+        TrackDto trackDto = new TrackDto();
+        String linkedFromId = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "album":
+                    readTrackAlbum(reader, trackDto, false);
+                    break;
+                case "artists":
+                    trackDto.setArtists(readArtists(reader));
+                    break;
+                case "name":
+                    trackDto.setMusicTitle(nextString(reader));
+                    break;
+                case "id":
+                    trackDto.setMusicId(nextString(reader));
+                    break;
+                case "linked_from":
+                    linkedFromId = readId(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (linkedFromId != null) {
+            trackDto.setMusicId(linkedFromId);
+        }
+        return trackDto;
+    }
+
+    /**
+     * GET /v1/tracks?ids= , spotify에 없는 id는 null로 내려오므로 건너뛴다.
+     * relinking된 트랙도 요청한 id로 넣는다. ({@link #readTrack})
+     */
+    public static Map<String, TrackDto> readTracks(JsonReader reader) throws IOException {
+        Map<String, TrackDto> trackDtos = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("tracks")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                TrackDto trackDto = readTrack(reader);
+                trackDtos.put(trackDto.getMusicId(), trackDto);
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return trackDtos;
+    }
+
+    /**
+     * GET /v1/search?type=track , 가수는 트랙이 아닌 앨범의 가수를 쓴다.
+     */
+    public static List<TrackDto> readSearchTracks(JsonReader reader) throws IOException {
+        return readSearchItems(reader, "tracks", item -> {
+            TrackDto trackDto = new TrackDto();
+            item.beginObject();
+            while (item.hasNext()) {
+                switch (item.nextName()) {
+                    case "album":
+                        readTrackAlbum(item, trackDto, true);
+                        break;
+                    case "id":
+                        trackDto.setMusicId(nextString(item));
+                        break;
+                    case "name":
+                        trackDto.setMusicTitle(nextString(item));
+                        break;
+                    default:
+                        item.skipValue();
+                }
+            }
+            item.endObject();
+            return trackDto;
+        });
+    }
+
+    /**
+     * GET /v1/search?type=track 에서 노래제목만 필요할 때
+     */
+    public static List<TrackDto> readSearchTrackNames(JsonReader reader) throws IOException {
+        return readSearchItems(reader, "tracks", item -> {
+            TrackDto trackDto = new TrackDto();
+            item.beginObject();
+            while (item.hasNext()) {
+                if (item.nextName().equals("name")) {
+                    trackDto.setMusicTitle(nextString(item));
+                } else {
+                    item.skipValue();
+                }
+            }
+            item.endObject();
+            return trackDto;
+        });
+    }
+
+    /**
+     * GET /v1/search?type=artist
+     */
+    public static List<ArtistDto> readSearchArtists(JsonReader reader) throws IOException {
+        return readSearchItems(reader, "artists", item -> {
+            ArtistDto artistDto = new ArtistDto();
+            item.beginObject();
+            while (item.hasNext()) {
+                switch (item.nextName()) {
+                    case "genres":
+                        artistDto.setGenres(readStrings(item));
+                        break;
+                    case "images":
+                        artistDto.setArtistImageUrl(readImageUrl(item, LARGE_IMAGE));
+                        break;
+                    case "id":
+                        artistDto.setArtistId(nextString(item));
+                        break;
+                    case "name":
+                        artistDto.setArtistName(nextString(item));
+                        break;
+                    default:
+                        item.skipValue();
+                }
+            }
+            item.endObject();
+            return artistDto;
+        });
+    }
+
+    /**
+     * GET /v1/search?type=album
+     */
+    public static List<AlbumDto> readSearchAlbums(JsonReader reader) throws IOException {
+        return readSearchItems(reader, "albums", item -> readAlbum(item, MEDIUM_IMAGE));
+    }
+
+    /**
+     * GET /v1/artists/{id}/albums
+     */
+    public static List<AlbumDto> readArtistAlbums(JsonReader reader) throws IOException {
+        return readItems(reader, "items", item -> readAlbum(item, LARGE_IMAGE));
+    }
+
+    /**
+     * GET /v1/albums/{id}/tracks
+     */
+    public static List<AlbumTrackDto> readAlbumTracks(JsonReader reader) throws IOException {
+        return readItems(reader, "items", item -> {
+            AlbumTrackDto albumTrackDto = new AlbumTrackDto();
+            item.beginObject();
+            while (item.hasNext()) {
+                switch (item.nextName()) {
+                    case "artists":
+                        albumTrackDto.setArtists(readArtists(item));
+                        break;
+                    case "id":
+                        albumTrackDto.setMusicId(nextString(item));
+                        break;
+                    case "name":
+                        albumTrackDto.setMusicTitle(nextString(item));
+                        break;
+                    default:
+                        item.skipValue();
+                }
+            }
+            item.endObject();
+            return albumTrackDto;
+        });
+    }
+
+    /**
+     * GET /v1/artists/{id}/top-tracks
+     */
+    public static List<HotTrackDto> readHotTracks(JsonReader reader) throws IOException {
+        return readItems(reader, "tracks", item -> {
+            HotTrackDto hotTrackDto = new HotTrackDto();
+            item.beginObject();
+            while (item.hasNext()) {
+                switch (item.nextName()) {
+                    case "album":
+                        item.beginObject();
+                        while (item.hasNext()) {
+                            if (item.nextName().equals("images")) {
+                                hotTrackDto.setAlbumImageUrl(readImageUrl(item, LARGE_IMAGE));
+                            } else {
+                                item.skipValue();
+                            }
+                        }
+                        item.endObject();
+                        break;
+                    case "artists":
+                        hotTrackDto.setArtistName(readArtistNames(item));
+                        break;
+                    case "name":
+                        hotTrackDto.setMusicTitle(nextString(item));
+                        break;
+                    case "id":
+                        hotTrackDto.setMusicId(nextString(item));
+                        break;
+                    default:
+                        item.skipValue();
+                }
+            }
+            item.endObject();
+            return hotTrackDto;
+        });
+    }
+
+    private static void readTrackAlbum(JsonReader reader, TrackDto trackDto, boolean withArtists) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "artists":
+                    if (withArtists) {
+                        trackDto.setArtists(readArtists(reader));
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case "id":
+                    trackDto.setAlbumId(nextString(reader));
+                    break;
+                case "images":
+                    trackDto.setAlbumImageUrl(readImageUrl(reader, MEDIUM_IMAGE));
+                    break;
+                case "name":
+                    trackDto.setAlbumTitle(nextString(reader));
+                    break;
+                case "release_date":
+                    trackDto.setReleaseDate(nextString(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static AlbumDto readAlbum(JsonReader reader, int imageIndex) throws IOException {
+        AlbumDto albumDto = new AlbumDto();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "artists":
+                    albumDto.setArtists(readArtists(reader));
+                    break;
+                case "images":
+                    albumDto.setAlbumImageUrl(readImageUrl(reader, imageIndex));
+                    break;
+                case "id":
+                    albumDto.setAlbumId(nextString(reader));
+                    break;
+                case "name":
+                    albumDto.setAlbumTitle(nextString(reader));
+                    break;
+                case "release_date":
+                    albumDto.setReleaseDate(nextString(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return albumDto;
+    }
+
+    /**
+     * 검색 응답은 {"tracks": {"items": [...], ...}} 처럼 type 이름 아래 페이지 객체가 있다.
+     */
+    private static <T> List<T> readSearchItems(JsonReader reader, String type, ValueReader<T> itemReader) throws IOException {
+        List<T> items = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(type)) {
+                items = readItems(reader, "items", itemReader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return items;
+    }
+
+    private static <T> List<T> readItems(JsonReader reader, String field, ValueReader<T> itemReader) throws IOException {
+        List<T> items = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(field)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    items.add(itemReader.read(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return items;
+    }
+
+    private static List<Artists> readArtists(JsonReader reader) throws IOException {
+        List<Artists> artists = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Artists artist = new Artists();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id":
+                        artist.setArtistId(nextString(reader));
+                        break;
+                    case "name":
+                        artist.setArtistName(nextString(reader));
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            artists.add(artist);
+        }
+        reader.endArray();
+        return artists;
+    }
+
+    private static String readId(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        String id = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("id")) {
+                id = nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return id;
+    }
+
+    private static List<String> readArtistNames(JsonReader reader) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (Artists artist : readArtists(reader)) {
+            names.add(artist.getArtistName());
+        }
+        return names;
+    }
+
+    private static List<String> readStrings(JsonReader reader) throws IOException {
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(nextString(reader));
+        }
+        reader.endArray();
+        return values;
+    }
+
+    /**
+     * images 배열에서 index번째 url을 읽는다. 이미지가 그보다 적으면 마지막 이미지를, 없으면 null을 쓴다.
+     */
+    private static String readImageUrl(JsonReader reader, int index) throws IOException {
+        String url = null;
+        int position = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (position <= index) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("url")) {
+                        url = nextString(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+            position++;
+        }
+        reader.endArray();
+        return url;
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+}
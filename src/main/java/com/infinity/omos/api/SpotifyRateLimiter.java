@@ -0,0 +1,85 @@
+package com.infinity.omos.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * spotify 요청 한도를 넘지 않도록 클라이언트 쪽에서 거는 토큰 버킷.
+ * 초당 {@link #PERMITS_PER_SECOND}개씩 채워지고 최대 {@link #BURST}개까지 모인다.
+ * 429 응답의 Retry-After 동안은 버킷과 상관없이 모든 요청을 멈춘다.
+ * 토큰을 {@link #MAX_WAIT_MILLIS} 안에 받을 수 없으면 기다리지 않고 바로 거절한다.
+ */
+public class SpotifyRateLimiter {
+
+    //spotify는 30초 이동 구간으로 한도를 계산한다. 앱 한도보다 여유있게 잡는다.
+    private static final double PERMITS_PER_SECOND = 10;
+    private static final double BURST = 20;
+    static final long MAX_WAIT_MILLIS = 1_000;
+
+    private static final double PERMITS_PER_NANO = PERMITS_PER_SECOND / TimeUnit.SECONDS.toNanos(1);
+
+    private static double permits = BURST;
+    private static long lastRefill = System.nanoTime();
+    private static long pausedUntil = lastRefill;
+
+    private static final Counter REJECTED = Metrics.counter("spotify.ratelimit.rejected");
+    private static final Counter RATE_LIMITED = Metrics.counter("spotify.ratelimit.429");
+
+    private SpotifyRateLimiter() {
+    }
+
+    /**
+     * 토큰 하나를 받는다. 필요하면 최대 MAX_WAIT_MILLIS 동안 기다린다.
+     *
+     * @return 토큰을 받지 못했으면 false
+     */
+    public static boolean tryAcquire() {
+        long waitNanos = reserve();
+        if (waitNanos < 0) {
+            REJECTED.increment();
+            return false;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 429 응답을 받으면 retryAfterSeconds 동안 요청을 멈춘다.
+     */
+    public static synchronized void pause(long retryAfterSeconds) {
+        RATE_LIMITED.increment();
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(retryAfterSeconds);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        permits = 0;
+    }
+
+    /**
+     * 토큰을 예약하고 기다려야 할 시간을 반환한다. 최대 대기시간을 넘으면 예약하지 않고 -1을 반환한다.
+     */
+    private static synchronized long reserve() {
+        long now = System.nanoTime();
+        permits = Math.min(BURST, permits + (now - lastRefill) * PERMITS_PER_NANO);
+        lastRefill = now;
+
+        long waitNanos = Math.max(0, pausedUntil - now);
+        if (permits < 1) {
+            waitNanos = Math.max(waitNanos, (long) ((1 - permits) / PERMITS_PER_NANO));
+        }
+        if (waitNanos > TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_MILLIS)) {
+            return -1;
+        }
+        permits -= 1;
+        return waitNanos;
+    }
+}
@@ -0,0 +1,126 @@
+package com.infinity.omos.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Spotify 검색 결과를 (검색종류, 정규화된 검색어, 블록 offset) 단위로 보관하는 프로세스 내 캐시.
+ * 클라이언트의 offset, limit과 상관없이 spotify에는 항상 {@link #BLOCK_SIZE}개 단위로 정렬된 블록을 요청하고,
+ * 요청한 페이지는 블록에서 잘라서 준다. 그래서 limit 10으로 페이지를 넘기는 클라이언트는 5페이지마다 한번만 spotify에 요청한다.
+ * 블록은 항목 수 기준으로 용량이 제한되고 짧은 TTL 후 만료되며, 메트릭은 "spotify.search" 캐시로 노출된다.
+ */
+public class SpotifySearchCache {
+
+    //spotify 검색 limit 최대값
+    public static final int BLOCK_SIZE = 50;
+
+    private static final long MAXIMUM_ITEMS = 100_000;
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private static final Cache<Key, List<?>> CACHE = Caffeine.newBuilder()
+            .maximumWeight(MAXIMUM_ITEMS)
+            .weigher((Key key, List<?> items) -> items.size() + 1)
+            .expireAfterWrite(TIME_TO_LIVE)
+            .recordStats()
+            .build();
+
+    private static final SingleFlight<Key, List<?>> IN_FLIGHT = new SingleFlight<>("search");
+
+    static {
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, CACHE, "spotify.search");
+    }
+
+    private SpotifySearchCache() {
+    }
+
+    /**
+     * [offset, offset+limit) 구간의 검색 결과를 반환한다.
+     *
+     * @param type        캐시를 구분하는 검색종류 (album, track, track-name, artist)
+     * @param blockLoader (정규화된 검색어, 블록 offset)으로 BLOCK_SIZE개를 spotify에 요청한다
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> get(String type, String keyword, int offset, int limit, BiFunction<String, Integer, List<T>> blockLoader) {
+        List<T> page = new ArrayList<>();
+        if (offset < 0 || limit <= 0) {
+            return page;
+        }
+
+        String query = normalize(keyword);
+        int end = offset + limit;
+        for (int blockOffset = offset - offset % BLOCK_SIZE; blockOffset < end; blockOffset += BLOCK_SIZE) {
+            List<T> items = (List<T>) getBlock(new Key(type, query, blockOffset), blockLoader);
+            int from = Math.max(offset - blockOffset, 0);
+            int to = Math.min(end - blockOffset, items.size());
+            if (from < to) {
+                page.addAll(items.subList(from, to));
+            }
+            if (items.size() < BLOCK_SIZE) {//마지막 블록
+                break;
+            }
+        }
+        return page;
+    }
+
+    private static <T> List<?> getBlock(Key key, BiFunction<String, Integer, List<T>> blockLoader) {
+        List<?> cached = CACHE.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return IN_FLIGHT.execute(key, () -> {
+            List<?> loaded = CACHE.asMap().get(key);
+            if (loaded == null) {
+                loaded = blockLoader.apply(key.query, key.offset);
+                CACHE.put(key, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * 앞뒤 공백 제거, 연속 공백은 하나로, 소문자, NFC(iOS에서 자모가 분리된 NFD로 오는 경우가 있다)
+     */
+    static String normalize(String keyword) {
+        String normalized = Normalizer.normalize(keyword, Normalizer.Form.NFC);
+        return normalized.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Key {
+        private final String type;
+        private final String query;
+        private final int offset;
+
+        private Key(String type, String query, int offset) {
+            this.type = type;
+            this.query = query;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return offset == key.offset && type.equals(key.type) && query.equals(key.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, query, offset);
+        }
+    }
+}
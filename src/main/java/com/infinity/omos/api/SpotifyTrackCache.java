@@ -0,0 +1,157 @@
+package com.infinity.omos.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.infinity.omos.dto.TrackDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Spotify track id로 파싱된 {@link TrackDto}를 보관하는 프로세스 내 캐시.
+ * 크기 기반 축출(W-TinyLFU)과 TTL을 쓰고, hit/miss/eviction 수는 "spotify.track" 캐시 메트릭으로 노출된다.
+ * 캐시된 TrackDto는 여러 요청이 공유하므로 꺼내 쓰는 쪽에서 수정하면 안된다.
+ * 캐시에 없거나 막 만료된 track은 {@link SingleFlight}로 요청을 합쳐 id당 한번만 spotify에 요청한다.
+ * <p>
+ * {@link #FRESH_FOR}이 지난 track은 get, getAll에서 다시 요청하지만 {@link #TIME_TO_LIVE}까지는 지우지 않고 남겨둔다.
+ * spotify 요청이 실패하면 {@link #getStale}, {@link #getAllStale}로 남아있는 값을 대신 쓸 수 있다.
+ */
+public class SpotifyTrackCache {
+
+    private static final long MAXIMUM_SIZE = 10_000;
+    private static final Duration FRESH_FOR = Duration.ofHours(6);
+    private static final Duration TIME_TO_LIVE = Duration.ofDays(3);
+
+    private static final Cache<String, Entry> CACHE = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(TIME_TO_LIVE)
+            .recordStats()
+            .build();
+
+    private static final SingleFlight<String, TrackDto> IN_FLIGHT = new SingleFlight<>("track");
+
+    private static final Counter STALE_SERVED = Metrics.counter("spotify.track.stale");
+
+    static {
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, CACHE, "spotify.track");
+    }
+
+    private SpotifyTrackCache() {
+    }
+
+    /**
+     * Caffeine의 get(key, loader)는 loader가 끝날 때까지 같은 해시 구간의 다른 key까지 막으므로,
+     * spotify 요청은 캐시 밖에서 하고 결과만 넣는다.
+     */
+    public static TrackDto get(String id, Function<String, TrackDto> loader) {
+        Entry cached = CACHE.getIfPresent(id);
+        if (cached != null && cached.isFresh()) {
+            return cached.track;
+        }
+        TrackDto track = IN_FLIGHT.execute(id, () -> {
+            Entry loaded = CACHE.asMap().get(id);//앞선 요청이 방금 채웠을 수 있다, 통계에는 넣지 않는다
+            if (loaded == null || !loaded.isFresh()) {
+                loaded = new Entry(loader.apply(id));
+                CACHE.put(id, loaded);
+            }
+            return loaded.track;
+        });
+        if (track == null) {//같이 가져오던 getAll 결과에 없었다. spotify에 없는 노래
+            throw new SpotifyApiException("responseCode : 404", 404);
+        }
+        return track;
+    }
+
+    /**
+     * 캐시에 없거나 오래된 id만 모아서 loader로 한번에 요청한다. loader가 실패하면 예외를 그대로 던진다.
+     * 다른 요청이 이미 가져오는 중인 id는 {@link SingleFlight#executeAll}로 그 결과를 기다리므로, 동시에 들어온 피드 요청들이 같은 track을 두번 요청하지 않는다.
+     */
+    public static Map<String, TrackDto> getAll(Collection<String> ids, Function<Iterable<? extends String>, Map<String, TrackDto>> loader) {
+        Map<String, TrackDto> tracks = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        Map<String, Entry> present = CACHE.getAllPresent(ids);
+        for (String id : ids) {
+            Entry entry = present.get(id);
+            if (entry != null && entry.isFresh()) {
+                tracks.put(id, entry.track);
+            } else {
+                misses.add(id);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            tracks.putAll(IN_FLIGHT.executeAll(misses, owned -> {
+                Map<String, TrackDto> loaded = new HashMap<>();
+                List<String> requested = new ArrayList<>();
+                for (String id : owned) {
+                    Entry entry = CACHE.asMap().get(id);//앞선 요청이 방금 채웠을 수 있다
+                    if (entry != null && entry.isFresh()) {
+                        loaded.put(id, entry.track);
+                    } else {
+                        requested.add(id);
+                    }
+                }
+                if (!requested.isEmpty()) {
+                    Map<String, TrackDto> fetched = loader.apply(requested);
+                    fetched.forEach((id, track) -> CACHE.put(id, new Entry(track)));
+                    loaded.putAll(fetched);
+                }
+                return loaded;
+            }));
+        }
+        return tracks;
+    }
+
+    /**
+     * 오래됐더라도 캐시에 남아있는 값을 반환한다. 없으면 null
+     */
+    public static TrackDto getStale(String id) {
+        Entry entry = CACHE.asMap().get(id);
+        if (entry == null) {
+            return null;
+        }
+        STALE_SERVED.increment();
+        return entry.track;
+    }
+
+    /**
+     * 오래됐더라도 캐시에 남아있는 값들을 반환한다. 캐시에 없는 id는 결과에 들어가지 않는다.
+     */
+    public static Map<String, TrackDto> getAllStale(Collection<String> ids) {
+        Map<String, TrackDto> tracks = new HashMap<>();
+        for (String id : ids) {
+            Entry entry = CACHE.asMap().get(id);
+            if (entry != null) {
+                tracks.put(id, entry.track);
+            }
+        }
+        STALE_SERVED.increment(tracks.size());
+        return tracks;
+    }
+
+    public static CacheStats stats() {
+        return CACHE.stats();
+    }
+
+    private static final class Entry {
+        private final TrackDto track;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Entry(TrackDto track) {
+            this.track = track;
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() - loadedAt < FRESH_FOR.toMillis();
+        }
+    }
+}
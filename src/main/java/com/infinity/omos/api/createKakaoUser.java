@@ -4,11 +4,11 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import com.infinity.omos.dto.SignUpDto;
 
-import java.io.BufferedReader;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 
 public class createKakaoUser {
 
@@ -19,30 +19,26 @@ public class createKakaoUser {
 
         //access_token을 이용하여 사용자 정보 조회
 
-            URL url = new URL(reqURL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-            conn.setRequestMethod("POST");
-            conn.setDoOutput(true);
-            conn.setRequestProperty("Authorization", "Bearer " + token); //전송할 header 작성, access_token전송
-
-            //결과 코드가 200이라면 성공
-            int responseCode = conn.getResponseCode();
-            System.out.println("responseCode : " + responseCode);
-
-            //요청을 통해 얻은 JSON타입의 Response 메세지 읽어오기
-            BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            String line = "";
-            StringBuilder result = new StringBuilder();
+            Request request = new Request.Builder()
+                    .url(reqURL)
+                    .header("Authorization", "Bearer " + token) //전송할 header 작성, access_token전송
+                    .post(RequestBody.create(null, new byte[0]))
+                    .build();
 
-            while ((line = br.readLine()) != null) {
-                result.append(line);
+            String result;
+            try (Response response = ApiHttpClient.execute(request)) {
+                //결과 코드가 200이라면 성공
+                System.out.println("responseCode : " + response.code());
+                if (!response.isSuccessful()) {
+                    throw new IOException("responseCode : " + response.code());
+                }
+                result = response.body().string();
             }
             System.out.println("response body : " + result);
 
             //Gson 라이브러리로 JSON파싱
             JsonParser parser = new JsonParser();
-            JsonElement element = parser.parse(result.toString());
+            JsonElement element = parser.parse(result);
 
             int id = element.getAsJsonObject().get("id").getAsInt();
             boolean hasEmail = element.getAsJsonObject().get("kakao_account").getAsJsonObject().get("has_email").getAsBoolean();
@@ -54,8 +50,6 @@ public class createKakaoUser {
             System.out.println("id : " + id);
             System.out.println("email : " + email);
 
-            br.close();
-
             return SignUpDto.builder()
                     .email(email)
                     .nickname("익명")
@@ -6,6 +6,7 @@ import com.infinity.omos.config.jwt.JwtSecurityConfiguration;
 import com.infinity.omos.config.jwt.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -52,6 +53,7 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .antMatchers("/api/auth/**","/h2-console/**").permitAll() //로그인 부분
                 //.antMatchers("/api/records/**").permitAll()
                 .antMatchers("/swagger-ui.html/**","/swagger-resources/**","/v2/api-docs","/webjars/**").permitAll()
+                .antMatchers(HttpMethod.POST, "/api/today/snapshot").hasRole("ADMIN") //투데이 다시 만들기는 운영자만
                 .anyRequest().authenticated()// 그밖에 모든 부분은 인증받아야함
                 .and().headers().frameOptions().sameOrigin()// iframe문제 발생x
 
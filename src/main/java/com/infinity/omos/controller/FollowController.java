@@ -43,16 +43,16 @@ public class FollowController {
         return ResponseEntity.ok(followService.selectFollowCount(fromUserId, toUserId));
     }
 
-    @ApiOperation(value = "팔로워 리스트", notes = "fromUser는 사용하는 사람, toUser는 프로필주인")
+    @ApiOperation(value = "팔로워 리스트", notes = "fromUser는 사용하는 사람, toUser는 프로필주인\nuserId는 이전 페이지 마지막 유저의 id(첫 페이지는 비워둠), size는 기본 50 최대 200")
     @GetMapping("/select/{toUserId}/follower")
-    public ResponseEntity<List<UserResponseDto>> selectFollower(@PathVariable Long toUserId, Long fromUserId) {
-        return ResponseEntity.ok(followService.selectFollower(fromUserId, toUserId));
+    public ResponseEntity<List<UserResponseDto>> selectFollower(@PathVariable Long toUserId, Long fromUserId, Long userId, Integer size) {
+        return ResponseEntity.ok(followService.selectFollower(fromUserId, toUserId, userId, size));
     }
 
-    @ApiOperation(value = "팔로잉 리스트", notes = "fromUser는 사용하는 사람, toUser는 프로필주인")
+    @ApiOperation(value = "팔로잉 리스트", notes = "fromUser는 사용하는 사람, toUser는 프로필주인\nuserId는 이전 페이지 마지막 유저의 id(첫 페이지는 비워둠), size는 기본 50 최대 200")
     @GetMapping("/select/{toUserId}/following")
-    public ResponseEntity<List<UserResponseDto>> selectFollowing(@PathVariable Long toUserId, Long fromUserId) {
-        return ResponseEntity.ok(followService.selectFollowing(fromUserId, toUserId));
+    public ResponseEntity<List<UserResponseDto>> selectFollowing(@PathVariable Long toUserId, Long fromUserId, Long userId, Integer size) {
+        return ResponseEntity.ok(followService.selectFollowing(fromUserId, toUserId, userId, size));
     }
 
     @ApiOperation(value = "DJ 검색")
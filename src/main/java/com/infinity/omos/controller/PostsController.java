@@ -26,10 +26,10 @@ public class PostsController {
         return ResponseEntity.ok(postsService.selectRecordsMatchingAllCategory(userId));
     }
 
-    @ApiOperation(value = "전체레코드에서 상세보기", notes = "postId는 처음엔 아무것도 안주시면 됩니다. 그리고 두번째부터는 첫번째에 받았던 마지막 postId를 넣어주시면 그 이후 post부터 나오게 됩니다.")
+    @ApiOperation(value = "전체레코드에서 상세보기", notes = "cursor는 처음엔 아무것도 안주시면 됩니다. 그리고 두번째부터는 첫번째에 받았던 마지막 레코드의 cursor를 넣어주시면 그 이후 post부터 나오게 됩니다. (postId도 예전처럼 받긴 합니다)")
     @GetMapping("/select/category/{category}")
-    public ResponseEntity<List<PostsDetailResponseDto>> selectPostsMatchingCategory(@PathVariable("category") Category category, @RequestParam("sortType") PostsService.SortType sortType, Long postId, @RequestParam("size") int pageSize, @RequestParam("userid") Long userId) {
-        return ResponseEntity.ok(postsService.selectRecordsByCategory(category, sortType, postId, pageSize, userId));
+    public ResponseEntity<List<PostsDetailResponseDto>> selectPostsMatchingCategory(@PathVariable("category") Category category, @RequestParam("sortType") PostsService.SortType sortType, Long postId, String cursor, @RequestParam("size") int pageSize, @RequestParam("userid") Long userId) {
+        return ResponseEntity.ok(postsService.selectRecordsByCategory(category, sortType, postId, cursor, pageSize, userId));
     }
 
     @ApiOperation(value = "레코드 저장")
@@ -50,10 +50,10 @@ public class PostsController {
         return ResponseEntity.ok(postsService.selectMyPosts(userId));
     }
 
-    @ApiOperation(value = "My레코드 전체 불러오기(취소)", notes = "페이징 처리 안하고 다 불러오는 걸로 했습니다!")
+    @ApiOperation(value = "My레코드 불러오기(취소)", notes = "최신순으로 size개씩 나옵니다. (size 없으면 20개, 최대 100개) cursor는 처음엔 아무것도 안주시면 되고, 두번째부터는 받았던 마지막 레코드의 cursor를 넣어주시면 됩니다.")
     @GetMapping("/{userId}/cancel")
-    public ResponseEntity<List<PostsDetailResponseDto>> selectMyPost(@PathVariable("userId") Long userId) {
-        return ResponseEntity.ok(postsService.selectMyPost(userId));
+    public ResponseEntity<List<PostsDetailResponseDto>> selectMyPost(@PathVariable("userId") Long userId, String cursor, @RequestParam(value = "size", required = false) Integer pageSize) {
+        return ResponseEntity.ok(postsService.selectMyPost(userId, cursor, pageSize));
     }
 
     @ApiOperation(value = "레코드 비공개 공개 활성화", notes = "비공개였으면 공개, 공개였으면 비공개로 전환됩니다.")
@@ -74,10 +74,10 @@ public class PostsController {
         return ResponseEntity.ok(postsService.delete(postId));
     }
 
-    @ApiOperation(value = "한 노래에 따른 레코드 API", notes = "해당 노래를 클릭하면 해당하는 레코드들이 나오게 되는 부분입니다! 이 부분은 다른 페이징이랑 달라서 죄송해요ㅠㅠ 제가 여러가지 시도하다보니ㅠㅠ 아마 그 전 페이징도 나중에 바뀌지 않을까 싶습니다ㅠㅠ 파라미터에 대해 설명 드리자면, postId는 처음엔 아무것도 안주시면 됩니다. 그리고 두번째부터는 첫번째에 받았던 마지막 postId를 넣어주시면 그 이후 post부터 나오게 됩니다.")
+    @ApiOperation(value = "한 노래에 따른 레코드 API", notes = "해당 노래를 클릭하면 해당하는 레코드들이 나오게 되는 부분입니다! 이 부분은 다른 페이징이랑 달라서 죄송해요ㅠㅠ 제가 여러가지 시도하다보니ㅠㅠ 아마 그 전 페이징도 나중에 바뀌지 않을까 싶습니다ㅠㅠ 파라미터에 대해 설명 드리자면, cursor는 처음엔 아무것도 안주시면 됩니다. 그리고 두번째부터는 첫번째에 받았던 마지막 레코드의 cursor를 넣어주시면 그 이후 post부터 나오게 됩니다. (postId도 예전처럼 받긴 합니다)")
     @GetMapping("/select/music/{musicId}")
-    public ResponseEntity<List<PostsDetailResponseDto>> selectPostsByMusicId(@PathVariable("musicId") String musicId, @RequestParam("sortType") PostsService.SortType sortType, Long postId, @RequestParam("size") int pageSize, @RequestParam("userId") Long userId) {
-        return ResponseEntity.ok(postsService.selectPostsByMusicId(musicId, sortType, postId, pageSize, userId));
+    public ResponseEntity<List<PostsDetailResponseDto>> selectPostsByMusicId(@PathVariable("musicId") String musicId, @RequestParam("sortType") PostsService.SortType sortType, Long postId, String cursor, @RequestParam("size") int pageSize, @RequestParam("userId") Long userId) {
+        return ResponseEntity.ok(postsService.selectPostsByMusicId(musicId, sortType, postId, cursor, pageSize, userId));
     }
 
     @ApiOperation(value = "해당 유저 레코드 목록 불러오기", notes = "fromUserId는 지금 이용하고 있는 유저, toUserId는 레코드 목록을 불러오고 싶은 유저")
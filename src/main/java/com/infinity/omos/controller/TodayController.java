@@ -4,11 +4,14 @@ package com.infinity.omos.controller;
 import com.infinity.omos.dto.DjDto;
 import com.infinity.omos.dto.MusicDto;
 import com.infinity.omos.dto.PostsResponseDto;
+import com.infinity.omos.dto.StateDto;
 import com.infinity.omos.dto.TrackDto;
 import com.infinity.omos.service.TodayService;
+import com.infinity.omos.service.TodaySnapshotScheduler;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,31 +19,37 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import java.util.List;
-
 @Controller
 @RequestMapping("/api/today")
 @RequiredArgsConstructor
 @Api(tags = {"투데이 API"})
 public class TodayController {
     private final TodayService todayService;
+    private final TodaySnapshotScheduler todaySnapshotScheduler;
 
-    @ApiOperation(value = "오늘의 노래")
+    @ApiOperation(value = "오늘의 노래", response = MusicDto.class)
     @GetMapping("/music-of-today")
-    public ResponseEntity<MusicDto> musicOfToday(){
-        return ResponseEntity.ok(todayService.musicOfToday());
+    public ResponseEntity<byte[]> musicOfToday(){
+        return json(todaySnapshotScheduler.get().getMusicOfToday());
     }
 
-    @ApiOperation(value = "지금 인기있는 레코드",notes = "인기 있는 레코드 3개로 알고있어서 3개의 게시글이 반환됩니다.")
+    @ApiOperation(value = "지금 인기있는 레코드",notes = "인기 있는 레코드 3개로 알고있어서 3개의 게시글이 반환됩니다.", response = PostsResponseDto.class, responseContainer = "List")
     @GetMapping("/famous-records-of-today")
-    public ResponseEntity<List<PostsResponseDto>> famousRecordsOfToday(){
-        return ResponseEntity.ok(todayService.famousRecordsOfToday());
+    public ResponseEntity<byte[]> famousRecordsOfToday(){
+        return json(todaySnapshotScheduler.get().getFamousRecords());
     }
 
-    @ApiOperation(value = "OMOS 추천 DJ")
+    @ApiOperation(value = "OMOS 추천 DJ", response = DjDto.class, responseContainer = "List")
     @GetMapping("/recommend-dj")
-    public ResponseEntity<List<DjDto>> recommendedDjOnToday(){
-        return ResponseEntity.ok(todayService.recommendedDjOnToday());
+    public ResponseEntity<byte[]> recommendedDjOnToday(){
+        return json(todaySnapshotScheduler.get().getRecommendedDj());
+    }
+
+    @ApiOperation(value = "투데이 다시 만들기", notes = "관리자만 호출할 수 있습니다. 오늘의 노래, 인기 레코드, 추천 DJ를 지금 다시 집계합니다")
+    @PostMapping("/snapshot")
+    public ResponseEntity<StateDto> rebuildSnapshot(){
+        todaySnapshotScheduler.rebuild();
+        return ResponseEntity.ok(StateDto.builder().state(true).build());
     }
 
     @ApiOperation(value = "내가 사랑했던 노래")
@@ -48,4 +57,9 @@ public class TodayController {
     public ResponseEntity<Object> musicILoved(@PathVariable Long userId){
         return ResponseEntity.ok(todayService.randomPostOnToday(userId));
     }
+
+    //투데이 스냅샷은 이미 JSON으로 직렬화되어 있다
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
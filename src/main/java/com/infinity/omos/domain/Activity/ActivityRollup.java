@@ -0,0 +1,73 @@
+package com.infinity.omos.domain.Activity;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 시간(HOUR)/일(DAY) 단위 활동 집계. bucket은 그 구간의 시작 시각이다.
+ * 기간 조회는 (type, granularity, bucket) 범위만 읽도록 인덱스에 target_id, total까지 넣어 테이블을 다시 읽지 않게 한다.
+ * 키를 직접 채워서 저장하므로 Like처럼 {@link Persistable}로 바로 insert 되게 한다.
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@IdClass(ActivityRollupId.class)
+@Table(name = "activity_rollup",
+        indexes = @Index(name = "idx_activity_rollup_window", columnList = "type, granularity, bucket, target_id, total"))
+public class ActivityRollup implements Persistable<ActivityRollupId> {
+
+    @Id
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private ActivityType type;
+
+    @Id
+    @Column(nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private RollupGranularity granularity;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDateTime bucket;
+
+    @Id
+    @Column(nullable = false, name = "target_id")
+    private String targetId;
+
+    @Column(nullable = false)
+    private long total;
+
+    @Transient
+    private boolean isNew = true;
+
+    @Builder
+    public ActivityRollup(ActivityType type, RollupGranularity granularity, LocalDateTime bucket, String targetId, long total) {
+        this.type = type;
+        this.granularity = granularity;
+        this.bucket = bucket;
+        this.targetId = targetId;
+        this.total = total;
+    }
+
+    @Override
+    public ActivityRollupId getId() {
+        return new ActivityRollupId(type, granularity, bucket, targetId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -0,0 +1,23 @@
+package com.infinity.omos.domain.Activity;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * ActivityRollup의 복합키 (type, granularity, bucket, target_id).
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ActivityRollupId implements Serializable {
+    private ActivityType type;
+    private RollupGranularity granularity;
+    private LocalDateTime bucket;
+    private String targetId;
+}
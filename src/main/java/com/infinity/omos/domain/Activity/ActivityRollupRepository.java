@@ -0,0 +1,37 @@
+package com.infinity.omos.domain.Activity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface ActivityRollupRepository extends JpaRepository<ActivityRollup, ActivityRollupId> {
+
+    @Modifying
+    @Query("update ActivityRollup r set r.total = r.total + :delta " +
+            "where r.type = :type and r.granularity = :granularity and r.bucket = :bucket and r.targetId = :targetId")
+    int addTotal(@Param("type") ActivityType type,
+                 @Param("granularity") RollupGranularity granularity,
+                 @Param("bucket") LocalDateTime bucket,
+                 @Param("targetId") String targetId,
+                 @Param("delta") long delta);
+
+    //일 단위 집계는 같은 날을 다시 돌려도 값이 같도록 더하지 않고 덮어쓴다
+    @Modifying
+    @Query("update ActivityRollup r set r.total = :total " +
+            "where r.type = :type and r.granularity = :granularity and r.bucket = :bucket and r.targetId = :targetId")
+    int setTotal(@Param("type") ActivityType type,
+                 @Param("granularity") RollupGranularity granularity,
+                 @Param("bucket") LocalDateTime bucket,
+                 @Param("targetId") String targetId,
+                 @Param("total") long total);
+
+    @Modifying
+    @Query("delete from ActivityRollup r where r.granularity = :granularity and r.bucket < :before")
+    int deleteOlderThan(@Param("granularity") RollupGranularity granularity, @Param("before") LocalDateTime before);
+
+    @Query("select max(r.bucket) from ActivityRollup r where r.type = :type and r.granularity = :granularity")
+    LocalDateTime findLatestBucket(@Param("type") ActivityType type, @Param("granularity") RollupGranularity granularity);
+}
@@ -0,0 +1,8 @@
+package com.infinity.omos.domain.Activity;
+
+/**
+ * 집계 종류. targetId는 MUSIC_POSTS면 노래 id, USER_POSTS면 유저 id, POST_LIKES면 레코드 id이다.
+ */
+public enum ActivityType {
+    MUSIC_POSTS, USER_POSTS, POST_LIKES
+}
@@ -0,0 +1,5 @@
+package com.infinity.omos.domain.Activity;
+
+public enum RollupGranularity {
+    HOUR, DAY
+}
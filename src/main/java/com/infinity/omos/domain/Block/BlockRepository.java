@@ -2,9 +2,18 @@ package com.infinity.omos.domain.Block;
 
 import com.infinity.omos.domain.User.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface BlockRepository extends JpaRepository<Block, Long> {
     Optional<Block> findByFromUserIdAndToUserId(User fromUserId, User toUseId);
+
+    @Query("select b.postId.id from Block b where b.fromUserId.id = :fromUserId and b.postId is not null")
+    List<Long> findBlockedPostIds(@Param("fromUserId") Long fromUserId);
+
+    @Query("select b.toUserId.id from Block b where b.fromUserId.id = :fromUserId and b.toUserId is not null")
+    List<Long> findBlockedUserIds(@Param("fromUserId") Long fromUserId);
 }
@@ -0,0 +1,64 @@
+package com.infinity.omos.domain.Block;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 한 유저가 차단한 레코드 id와 유저 id. 정렬된 long 배열로 들고 있어 작고 찾기 빠르다.
+ */
+public class BlockedSet {
+
+    public static final BlockedSet EMPTY = new BlockedSet(new long[0], new long[0]);
+
+    private final long[] postIds;
+    private final long[] userIds;
+
+    private BlockedSet(long[] postIds, long[] userIds) {
+        this.postIds = postIds;
+        this.userIds = userIds;
+    }
+
+    public static BlockedSet of(List<Long> postIds, List<Long> userIds) {
+        if (postIds.isEmpty() && userIds.isEmpty()) {
+            return EMPTY;
+        }
+        return new BlockedSet(toSortedArray(postIds), toSortedArray(userIds));
+    }
+
+    public boolean isBlockedPost(long postId) {
+        return Arrays.binarySearch(postIds, postId) >= 0;
+    }
+
+    public boolean isBlockedUser(long userId) {
+        return Arrays.binarySearch(userIds, userId) >= 0;
+    }
+
+    public List<Long> getPostIds() {
+        return toList(postIds);
+    }
+
+    public List<Long> getUserIds() {
+        return toList(userIds);
+    }
+
+    public int getPostCount() {
+        return postIds.length;
+    }
+
+    public int getUserCount() {
+        return userIds.length;
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+
+    private static List<Long> toList(long[] ids) {
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,64 @@
+package com.infinity.omos.domain.Block;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+
+/**
+ * 유저별 차단 목록({@link BlockedSet}) 캐시. 처음 필요할 때 BlockRepository에서 읽고,
+ * 차단 추가/해제 시 {@link #evict}으로 지운다. 메트릭은 "block.set" 캐시로 노출된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class BlockedSetCache {
+
+    private static final long MAXIMUM_SIZE = 50_000;
+    private static final Duration EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
+    private final BlockRepository blockRepository;
+
+    private LoadingCache<Long, BlockedSet> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+                .recordStats()
+                .build(fromUserId -> BlockedSet.of(
+                        blockRepository.findBlockedPostIds(fromUserId),
+                        blockRepository.findBlockedUserIds(fromUserId)));
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache, "block.set");
+    }
+
+    public BlockedSet get(Long fromUserId) {
+        if (fromUserId == null) {
+            return BlockedSet.EMPTY;
+        }
+        return cache.get(fromUserId);
+    }
+
+    /**
+     * 지금 바로, 그리고 트랜잭션이 끝난 뒤에 한번 더 지운다.
+     * (커밋 전에 다른 요청이 예전 차단 목록을 다시 읽어 넣는 경우를 막기 위해)
+     */
+    public void evict(Long fromUserId) {
+        cache.invalidate(fromUserId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(fromUserId);
+                }
+            });
+        }
+    }
+}
@@ -2,30 +2,58 @@ package com.infinity.omos.domain.Follow;
 
 import com.infinity.omos.domain.BaseTimeEntity;
 import com.infinity.omos.domain.User.User;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.*;
 
+/**
+ * 팔로우. 기본키는 (from_user_id, to_user_id)이고, 팔로워를 찾을 때는 (to_user_id, from_user_id) 인덱스를 쓴다.
+ * 저장 방식은 Like와 같다.
+ */
 @Getter
-@AllArgsConstructor
 @Entity
-@Builder
-@NoArgsConstructor
-public class Follow extends BaseTimeEntity {
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@IdClass(FollowId.class)
+@Table(indexes = @Index(name = "idx_follow_to_from", columnList = "to_user_id, from_user_id"))
+public class Follow extends BaseTimeEntity implements Persistable<FollowId> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="from_user_id")
     private User fromUserId;
 
+    @Id
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="to_user_id")
     private User toUserId;
 
+    @Transient
+    private boolean isNew = true;
+
+    @Builder
+    public Follow(User fromUserId, User toUserId) {
+        this.fromUserId = fromUserId;
+        this.toUserId = toUserId;
+    }
+
+    @Override
+    public FollowId getId() {
+        return new FollowId(fromUserId.getId(), toUserId.getId());
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
 }
@@ -0,0 +1,132 @@
+package com.infinity.omos.domain.Follow;
+
+import java.util.Arrays;
+
+/**
+ * 팔로우 관계 전체를 CSR(compressed sparse row) 형태의 primitive 배열로 들고 있는 읽기 전용 그래프.
+ * 팔로잉(from -> to)과 팔로워(to -> from) 방향을 각각 따로 두고, 유저 id는 정렬된 배열에서 이분 탐색으로 찾는다.
+ * 만든 뒤에는 바뀌지 않는다. 새 팔로우/언팔로우는 {@link FollowGraphIndex}가 따로 들고 있다가 다시 만들 때 합친다.
+ */
+public class FollowGraph {
+
+    public static final FollowGraph EMPTY = new Builder().build();
+
+    private final Adjacency following;
+    private final Adjacency followers;
+
+    private FollowGraph(Adjacency following, Adjacency followers) {
+        this.following = following;
+        this.followers = followers;
+    }
+
+    public int getFollowingCount(long userId) {
+        return following.degree(userId);
+    }
+
+    public int getFollowerCount(long userId) {
+        return followers.degree(userId);
+    }
+
+    public boolean isFollowing(long fromUserId, long toUserId) {
+        return following.contains(fromUserId, toUserId);
+    }
+
+    public long[] getFollowing(long userId) {
+        return following.neighbors(userId);
+    }
+
+    public long[] getFollowers(long userId) {
+        return followers.neighbors(userId);
+    }
+
+    public int getEdgeCount() {
+        return following.neighbors.length;
+    }
+
+    public static class Builder {
+        private long[] fromUserIds = new long[1024];
+        private long[] toUserIds = new long[1024];
+        private int size;
+
+        public Builder add(long fromUserId, long toUserId) {
+            if (size == fromUserIds.length) {
+                fromUserIds = Arrays.copyOf(fromUserIds, size * 2);
+                toUserIds = Arrays.copyOf(toUserIds, size * 2);
+            }
+            fromUserIds[size] = fromUserId;
+            toUserIds[size] = toUserId;
+            size++;
+            return this;
+        }
+
+        public FollowGraph build() {
+            return new FollowGraph(
+                    Adjacency.build(fromUserIds, toUserIds, size),
+                    Adjacency.build(toUserIds, fromUserIds, size));
+        }
+    }
+
+    /**
+     * userIds[i]의 이웃은 neighbors[offsets[i]] 부터 neighbors[offsets[i + 1]] 전까지이고 정렬되어 있다.
+     */
+    private static final class Adjacency {
+        private static final long[] NONE = new long[0];
+
+        private final long[] userIds;
+        private final int[] offsets;
+        private final long[] neighbors;
+
+        private Adjacency(long[] userIds, int[] offsets, long[] neighbors) {
+            this.userIds = userIds;
+            this.offsets = offsets;
+            this.neighbors = neighbors;
+        }
+
+        private static Adjacency build(long[] keys, long[] values, int size) {
+            long[] sorted = Arrays.copyOf(keys, size);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            long[] userIds = Arrays.copyOf(sorted, distinct);
+
+            int[] offsets = new int[distinct + 1];
+            int[] rows = new int[size];
+            for (int i = 0; i < size; i++) {
+                rows[i] = Arrays.binarySearch(userIds, keys[i]);
+                offsets[rows[i] + 1]++;
+            }
+            for (int row = 0; row < distinct; row++) {
+                offsets[row + 1] += offsets[row];
+            }
+
+            long[] neighbors = new long[size];
+            int[] next = Arrays.copyOf(offsets, distinct);
+            for (int i = 0; i < size; i++) {
+                neighbors[next[rows[i]]++] = values[i];
+            }
+            for (int row = 0; row < distinct; row++) {
+                Arrays.sort(neighbors, offsets[row], offsets[row + 1]);
+            }
+            return new Adjacency(userIds, offsets, neighbors);
+        }
+
+        private int degree(long userId) {
+            int row = Arrays.binarySearch(userIds, userId);
+            return row < 0 ? 0 : offsets[row + 1] - offsets[row];
+        }
+
+        private boolean contains(long userId, long neighbor) {
+            int row = Arrays.binarySearch(userIds, userId);
+            return row >= 0 && Arrays.binarySearch(neighbors, offsets[row], offsets[row + 1], neighbor) >= 0;
+        }
+
+        private long[] neighbors(long userId) {
+            int row = Arrays.binarySearch(userIds, userId);
+            return row < 0 ? NONE : Arrays.copyOfRange(neighbors, offsets[row], offsets[row + 1]);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.infinity.omos.domain.Follow;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 팔로우 수, 팔로우 여부, 팔로잉/팔로워 목록을 DB 대신 메모리의 {@link FollowGraph}에서 답한다.
+ * 앱이 뜨면 FollowRepository에서 전체를 읽어 그래프를 만들고(걸린 시간은 "follow.graph.load" timer와 로그로 남긴다),
+ * 그 뒤의 팔로우/언팔로우는 커밋된 다음 유저별 추가/삭제 목록에 쌓는다. 쌓인 목록은 {@link #rebuild}에서 그래프를 다시 만들 때 비운다.
+ * 처음 읽기가 끝나기 전에는 {@link #isReady}가 false이고, 호출하는 쪽은 DB에서 읽는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FollowGraphIndex {
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    private final FollowRepository followRepository;
+
+    private final Timer loadTimer = Metrics.timer("follow.graph.load");
+
+    //처음 읽기 전에는 null
+    private volatile State state;
+
+    //다시 만드는 동안 들어온 변경. 다 읽은 그래프에 다시 적용한다. (this로 동기화)
+    private List<Consumer<State>> pendingEdits;
+
+    @PostConstruct
+    public void init() {
+        Metrics.gauge("follow.graph.edges", this, index -> index.state == null ? 0 : index.state.graph.getEdgeCount());
+        Metrics.gauge("follow.graph.delta", this, index -> index.state == null ? 0 : index.state.deltaSize());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread thread = new Thread(this::rebuild, "follow-graph-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 전체를 다시 읽어 그래프를 새로 만든다. 읽는 동안에도 지금 그래프로 계속 답한다.
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    public void rebuild() {
+        synchronized (this) {
+            if (pendingEdits != null) {
+                return;//이미 만드는 중
+            }
+            pendingEdits = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            FollowGraph graph = load();
+            long elapsed = System.nanoTime() - start;
+            loadTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+            synchronized (this) {
+                State loaded = new State(graph);
+                for (Consumer<State> edit : pendingEdits) {
+                    edit.accept(loaded);
+                }
+                state = loaded;
+            }
+            log.info("팔로우 그래프 로드: {}건, {}ms", graph.getEdgeCount(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (RuntimeException e) {
+            log.warn("팔로우 그래프 로드 실패: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                pendingEdits = null;
+            }
+        }
+    }
+
+    private FollowGraph load() {
+        FollowGraph.Builder builder = new FollowGraph.Builder();
+        long lastFromUserId = 0;
+        long lastToUserId = 0;
+        List<FollowId> page;
+        do {
+            page = followRepository.findEdgesAfter(lastFromUserId, lastToUserId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            for (FollowId edge : page) {
+                builder.add(edge.getFromUserId(), edge.getToUserId());
+            }
+            if (!page.isEmpty()) {
+                FollowId last = page.get(page.size() - 1);
+                lastFromUserId = last.getFromUserId();
+                lastToUserId = last.getToUserId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        return builder.build();
+    }
+
+    public boolean isReady() {
+        return state != null;
+    }
+
+    public int getFollowerCount(long userId) {
+        return state.getFollowerCount(userId);
+    }
+
+    public int getFollowingCount(long userId) {
+        return state.getFollowingCount(userId);
+    }
+
+    public boolean isFollowing(long fromUserId, long toUserId) {
+        return state.isFollowing(fromUserId, toUserId);
+    }
+
+    public List<Long> getFollowing(long userId) {
+        return state.getFollowing(userId);
+    }
+
+    public List<Long> getFollowers(long userId) {
+        return state.getFollowers(userId);
+    }
+
+    public void follow(long fromUserId, long toUserId) {
+        afterCommit(target -> target.apply(fromUserId, toUserId, true));
+    }
+
+    public void unfollow(long fromUserId, long toUserId) {
+        afterCommit(target -> target.apply(fromUserId, toUserId, false));
+    }
+
+    //탈퇴한 유저의 팔로잉, 팔로워를 모두 지운다
+    public void removeUser(long userId) {
+        afterCommit(target -> target.removeUser(userId));
+    }
+
+    private void afterCommit(Consumer<State> edit) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(edit);
+                }
+            });
+        } else {
+            apply(edit);
+        }
+    }
+
+    private synchronized void apply(Consumer<State> edit) {
+        if (state != null) {
+            edit.accept(state);
+        }
+        if (pendingEdits != null) {
+            pendingEdits.add(edit);
+        }
+    }
+
+    /**
+     * 그래프와 그 뒤의 변경. 변경은 FollowGraphIndex의 lock 안에서만 쓰고, 읽기는 lock 없이 한다.
+     */
+    private static final class State {
+        private final FollowGraph graph;
+        private final Map<Long, Set<Long>> addedFollowing = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> removedFollowing = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> addedFollowers = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> removedFollowers = new ConcurrentHashMap<>();
+
+        private State(FollowGraph graph) {
+            this.graph = graph;
+        }
+
+        private void apply(long fromUserId, long toUserId, boolean follow) {
+            boolean inGraph = graph.isFollowing(fromUserId, toUserId);
+            if (follow == inGraph) {
+                //그래프와 같아졌으므로 쌓아둔 반대 변경만 지운다
+                remove(follow ? removedFollowing : addedFollowing, fromUserId, toUserId);
+                remove(follow ? removedFollowers : addedFollowers, toUserId, fromUserId);
+            } else {
+                add(follow ? addedFollowing : removedFollowing, fromUserId, toUserId);
+                add(follow ? addedFollowers : removedFollowers, toUserId, fromUserId);
+            }
+        }
+
+        private void removeUser(long userId) {
+            for (Long toUserId : getFollowing(userId)) {
+                apply(userId, toUserId, false);
+            }
+            for (long fromUserId : graph.getFollowers(userId)) {
+                apply(fromUserId, userId, false);
+            }
+            for (Long fromUserId : new ArrayList<>(get(addedFollowers, userId))) {
+                apply(fromUserId, userId, false);
+            }
+        }
+
+        private int getFollowerCount(long userId) {
+            return graph.getFollowerCount(userId) + get(addedFollowers, userId).size() - get(removedFollowers, userId).size();
+        }
+
+        private int getFollowingCount(long userId) {
+            return graph.getFollowingCount(userId) + get(addedFollowing, userId).size() - get(removedFollowing, userId).size();
+        }
+
+        private boolean isFollowing(long fromUserId, long toUserId) {
+            if (get(addedFollowing, fromUserId).contains(toUserId)) {
+                return true;
+            }
+            return graph.isFollowing(fromUserId, toUserId) && !get(removedFollowing, fromUserId).contains(toUserId);
+        }
+
+        private List<Long> getFollowing(long userId) {
+            Set<Long> removed = get(removedFollowing, userId);
+            List<Long> following = new ArrayList<>(get(addedFollowing, userId));
+            for (long toUserId : graph.getFollowing(userId)) {
+                if (!removed.contains(toUserId)) {
+                    following.add(toUserId);
+                }
+            }
+            return following;
+        }
+
+        private List<Long> getFollowers(long userId) {
+            Set<Long> removed = get(removedFollowers, userId);
+            List<Long> followers = new ArrayList<>(get(addedFollowers, userId));
+            for (long fromUserId : graph.getFollowers(userId)) {
+                if (!removed.contains(fromUserId)) {
+                    followers.add(fromUserId);
+                }
+            }
+            return followers;
+        }
+
+        private int deltaSize() {
+            return addedFollowing.values().stream().mapToInt(Set::size).sum()
+                    + removedFollowing.values().stream().mapToInt(Set::size).sum();
+        }
+
+        private static Set<Long> get(Map<Long, Set<Long>> edges, long userId) {
+            return edges.getOrDefault(userId, Collections.emptySet());
+        }
+
+        private static void add(Map<Long, Set<Long>> edges, long userId, long neighbor) {
+            edges.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(neighbor);
+        }
+
+        private static void remove(Map<Long, Set<Long>> edges, long userId, long neighbor) {
+            Set<Long> neighbors = edges.get(userId);
+            if (neighbors != null) {
+                neighbors.remove(neighbor);
+                if (neighbors.isEmpty()) {
+                    edges.remove(userId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.infinity.omos.domain.Follow;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Follow의 복합키 (from_user_id, to_user_id). 필드 이름과 타입은 Follow의 @Id 연관관계 이름과 대상 엔티티의 id 타입을 따른다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class FollowId implements Serializable {
+    private Long fromUserId;
+    private Long toUserId;
+}
@@ -2,15 +2,53 @@ package com.infinity.omos.domain.Follow;
 
 import com.infinity.omos.domain.Follow.Follow;
 import com.infinity.omos.domain.User.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface FollowRepository extends JpaRepository<Follow,Long> {
+public interface FollowRepository extends JpaRepository<Follow,FollowId> {
     List<Follow> findByFromUserId(User fromUserId);
     int countByToUserId(User toUserId);
     int countByFromUserId(User fromUserId);
-    void deleteAllByFromUserId(User fromUserId);
-    void deleteAllByToUserId(User toUserId);
+
+    //한 건씩 읽어서 지우지 않고 delete 쿼리 한번으로 지운다
+    @Modifying
+    @Query("delete from Follow f where f.fromUserId = :fromUserId")
+    int deleteAllByFromUserId(@Param("fromUserId") User fromUserId);
+
+    @Modifying
+    @Query("delete from Follow f where f.toUserId = :toUserId")
+    int deleteAllByToUserId(@Param("toUserId") User toUserId);
+
+    //탈퇴한 유저의 팔로우(양쪽 방향)를 나눠서 지울 때 쓴다. 기본키와 역방향 인덱스를 각각 탄다
+    @Query("select f.toUserId.id from Follow f where f.fromUserId.id = :userId")
+    List<Long> findToUserIdsByFromUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select f.fromUserId.id from Follow f where f.toUserId.id = :userId")
+    List<Long> findFromUserIdsByToUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Follow f where f.fromUserId.id = :fromUserId and f.toUserId.id in :toUserIds")
+    int deleteAllByFromUserIdAndToUserIdIn(@Param("fromUserId") Long fromUserId, @Param("toUserIds") Collection<Long> toUserIds);
+
+    @Modifying
+    @Query("delete from Follow f where f.toUserId.id = :toUserId and f.fromUserId.id in :fromUserIds")
+    int deleteAllByToUserIdAndFromUserIdIn(@Param("toUserId") Long toUserId, @Param("fromUserIds") Collection<Long> fromUserIds);
+
+    //FollowGraphIndex가 전체를 기본키 순서로 나눠 읽을 때 쓴다
+    @Query("select new com.infinity.omos.domain.Follow.FollowId(f.fromUserId.id, f.toUserId.id) from Follow f" +
+            " where f.fromUserId.id > :fromUserId or (f.fromUserId.id = :fromUserId and f.toUserId.id > :toUserId)" +
+            " order by f.fromUserId.id, f.toUserId.id")
+    List<FollowId> findEdgesAfter(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId, Pageable pageable);
+
+    //엔티티를 읽지 않고 (from_user_id, to_user_id) 키로 바로 지운다
+    @Modifying
+    @Query("delete from Follow f where f.fromUserId.id = :fromUserId and f.toUserId.id = :toUserId")
+    int deleteByFromUserIdAndToUserId(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
 
 }
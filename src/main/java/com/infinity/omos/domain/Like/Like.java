@@ -4,36 +4,61 @@ package com.infinity.omos.domain.Like;
 import com.infinity.omos.domain.BaseTimeEntity;
 import com.infinity.omos.domain.Posts.Posts;
 import com.infinity.omos.domain.User.User;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 
+/**
+ * 좋아요. 기본키는 (user_id, post_id)이고, 레코드 쪽에서 찾을 때는 (post_id, user_id) 인덱스를 쓴다.
+ * 키를 직접 채워서 저장하므로 {@link Persistable}로 새 엔티티임을 알려 merge(select 후 insert) 대신 바로 insert 되게 한다.
+ */
 @Getter
-@AllArgsConstructor
 @Entity
-@Builder
-@NoArgsConstructor
-@Table(name = "like_num")
-public class Like extends BaseTimeEntity {
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@IdClass(LikeId.class)
+@Table(name = "like_num", indexes = @Index(name = "idx_like_post_user", columnList = "post_id, user_id"))
+public class Like extends BaseTimeEntity implements Persistable<LikeId> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id",nullable = false)
     @NotNull
     private User userId;
 
-    @ManyToOne
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id",nullable = false)
     @NotNull
     private Posts postId;
 
+    @Transient
+    private boolean isNew = true;
+
+    @Builder
+    public Like(User userId, Posts postId) {
+        this.userId = userId;
+        this.postId = postId;
+    }
+
+    @Override
+    public LikeId getId() {
+        return new LikeId(userId.getId(), postId.getId());
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
 
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
 
 }
@@ -0,0 +1,20 @@
+package com.infinity.omos.domain.Like;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Like의 복합키 (user_id, post_id). 필드 이름과 타입은 Like의 @Id 연관관계 이름과 대상 엔티티의 id 타입을 따른다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class LikeId implements Serializable {
+    private Long userId;
+    private Long postId;
+}
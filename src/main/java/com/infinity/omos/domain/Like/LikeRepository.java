@@ -3,12 +3,40 @@ package com.infinity.omos.domain.Like;
 import com.infinity.omos.domain.Like.Like;
 import com.infinity.omos.domain.Posts.Posts;
 import com.infinity.omos.domain.User.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface LikeRepository extends JpaRepository<Like,Long> {
+import java.util.Collection;
+import java.util.List;
+
+public interface LikeRepository extends JpaRepository<Like,LikeId> {
     boolean existsByPostId(Posts postsId);
     int countByPostId(Posts postId);
-    void deleteAllByPostId(Posts postsId);
-    void deleteAllByUserId(User userId);
+    int countByUserId(User userId);
+
+    //한 건씩 읽어서 지우지 않고 delete 쿼리 한번으로 지운다
+    @Modifying
+    @Query("delete from Like l where l.postId = :postId")
+    int deleteAllByPostId(@Param("postId") Posts postsId);
+
+    @Modifying
+    @Query("delete from Like l where l.userId = :userId")
+    int deleteAllByUserId(@Param("userId") User userId);
+
+    //탈퇴한 유저의 좋아요를 나눠서 지울 때 쓴다
+    @Query("select l.postId.id from Like l where l.userId.id = :userId")
+    List<Long> findPostIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Like l where l.userId.id = :userId and l.postId.id in :postIds")
+    int deleteAllByUserIdAndPostIdIn(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    //엔티티를 읽지 않고 (user_id, post_id) 키로 바로 지운다
+    @Modifying
+    @Query("delete from Like l where l.userId.id = :userId and l.postId.id = :postId")
+    int deleteByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId);
 
 }
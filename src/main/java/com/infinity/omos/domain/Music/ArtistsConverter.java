@@ -0,0 +1,28 @@
+package com.infinity.omos.domain.Music;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.infinity.omos.dto.Artists;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.lang.reflect.Type;
+import java.util.List;
+
+@Converter
+public class ArtistsConverter implements AttributeConverter<List<Artists>, String> {
+
+    private static final Gson GSON = new Gson();
+    private static final Type ARTISTS_TYPE = new TypeToken<List<Artists>>() {
+    }.getType();
+
+    @Override
+    public String convertToDatabaseColumn(List<Artists> artists) {
+        return artists == null ? null : GSON.toJson(artists, ARTISTS_TYPE);
+    }
+
+    @Override
+    public List<Artists> convertToEntityAttribute(String json) {
+        return json == null ? null : GSON.fromJson(json, ARTISTS_TYPE);
+    }
+}
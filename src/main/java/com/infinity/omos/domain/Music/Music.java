@@ -1,6 +1,9 @@
 package com.infinity.omos.domain.Music;
 
 import com.infinity.omos.domain.BaseTimeEntity;
+import com.infinity.omos.dto.Artists;
+import com.infinity.omos.dto.MusicDto;
+import com.infinity.omos.dto.TrackDto;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -8,12 +11,15 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 @AllArgsConstructor
 @Entity
 @Builder
 @NoArgsConstructor
+@Table(indexes = @Index(name = "idx_music_synced_date", columnList = "synced_date"))
 public class Music extends BaseTimeEntity {
 
     @Id
@@ -22,4 +28,45 @@ public class Music extends BaseTimeEntity {
 
     //@Column(nullable = false)
     private String artistId;
+
+    //spotify에서 가져온 노래정보 사본. title이 null이면 아직 한번도 받아오지 못한 노래이고, syncedDate는 마지막으로 spotify에 확인한 시각
+    private String title;
+
+    @Convert(converter = ArtistsConverter.class)
+    @Column(length = 2000)
+    private List<Artists> artists;
+
+    private String albumTitle;
+
+    private String albumImageUrl;
+
+    @Column(name = "synced_date")
+    private LocalDateTime syncedDate;
+
+    public boolean isSynced() {
+        return syncedDate != null && title != null;
+    }
+
+    public void updateTrack(TrackDto trackDto) {
+        this.title = trackDto.getMusicTitle();
+        this.artists = trackDto.getArtists();
+        this.albumTitle = trackDto.getAlbumTitle();
+        this.albumImageUrl = trackDto.getAlbumImageUrl();
+        this.syncedDate = LocalDateTime.now();
+    }
+
+    //spotify에 없는 노래. 가진 값은 그대로 두고 확인한 시각만 바꾼다
+    public void updateSyncedDate() {
+        this.syncedDate = LocalDateTime.now();
+    }
+
+    public MusicDto toMusicDto() {
+        return MusicDto.builder()
+                .musicId(id)
+                .musicTitle(title)
+                .artists(artists)
+                .albumTitle(albumTitle)
+                .albumImageUrl(albumImageUrl)
+                .build();
+    }
 }
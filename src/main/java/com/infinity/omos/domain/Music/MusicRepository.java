@@ -1,8 +1,14 @@
 package com.infinity.omos.domain.Music;
 
 import com.infinity.omos.domain.Music.Music;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface MusicRepository extends JpaRepository<Music,String> {
 
+    List<Music> findBySyncedDateIsNullOrSyncedDateBefore(LocalDateTime syncedDate, Pageable pageable);
+
 }
@@ -10,6 +10,8 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import javax.persistence.*;
 
 @Getter
@@ -17,6 +19,14 @@ import javax.persistence.*;
 @Entity
 @Builder
 @NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_posts_category_like", columnList = "category_id, is_public, like_count, id"),
+        @Index(name = "idx_posts_music_like", columnList = "music_id, is_public, like_count, id"),
+        @Index(name = "idx_posts_category_id", columnList = "category_id, is_public, id"),
+        @Index(name = "idx_posts_music_id", columnList = "music_id, is_public, id"),
+        @Index(name = "idx_posts_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_posts_created_date", columnList = "created_date")
+})
 public class Posts extends BaseTimeEntity {
 
     @Id
@@ -47,6 +57,15 @@ public class Posts extends BaseTimeEntity {
 
     private int cnt;
 
+    //좋아요, 스크랩 수 사본. PostsRepository의 update 쿼리로만 바뀌고, 엔티티 저장 시에는 덮어쓰지 않는다.
+    @Column(nullable = false, name = "like_count", updatable = false)
+    @ColumnDefault("0")
+    private int likeCount;
+
+    @Column(nullable = false, name = "scrap_count", updatable = false)
+    @ColumnDefault("0")
+    private int scrapCount;
+
     public void updateCnt() {
         ++cnt;
     }
@@ -5,12 +5,52 @@ import com.infinity.omos.domain.User.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 
 public interface PostsRepository extends JpaRepository<Posts, Long>, PostsRepositoryCustom{
 
     Page<Posts> findByCategoryOrderByCreatedDateDesc(Category category, Pageable pageable);
     int countByUserId(User user);
 
+    @Modifying
+    @Query("update Posts p set p.likeCount = p.likeCount + 1 where p.id = :postId")
+    int increaseLikeCount(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("update Posts p set p.likeCount = p.likeCount - 1 where p.id = :postId and p.likeCount > 0")
+    int decreaseLikeCount(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("update Posts p set p.scrapCount = p.scrapCount + 1 where p.id = :postId")
+    int increaseScrapCount(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("update Posts p set p.scrapCount = p.scrapCount - 1 where p.id = :postId and p.scrapCount > 0")
+    int decreaseScrapCount(@Param("postId") Long postId);
+
+    //탈퇴한 유저의 좋아요/스크랩을 지울 때. 한 유저는 레코드 하나에 한번만 누를 수 있으므로 1씩 뺀다
+    @Modifying
+    @Query("update Posts p set p.likeCount = p.likeCount - 1 where p.id in :postIds and p.likeCount > 0")
+    int decreaseLikeCounts(@Param("postIds") Collection<Long> postIds);
+
+    @Modifying
+    @Query("update Posts p set p.scrapCount = p.scrapCount - 1 where p.id in :postIds and p.scrapCount > 0")
+    int decreaseScrapCounts(@Param("postIds") Collection<Long> postIds);
+
+    /**
+     * 읽은 뒤로 값이 바뀌지 않았을 때만 고친다. (그 사이 들어온 좋아요/스크랩은 다음 보정 때 맞춘다)
+     */
+    @Modifying
+    @Query("update Posts p set p.likeCount = :likeCount, p.scrapCount = :scrapCount " +
+            "where p.id = :postId and p.likeCount = :oldLikeCount and p.scrapCount = :oldScrapCount")
+    int updateCounts(@Param("postId") Long postId,
+                     @Param("oldLikeCount") int oldLikeCount, @Param("oldScrapCount") int oldScrapCount,
+                     @Param("likeCount") int likeCount, @Param("scrapCount") int scrapCount);
+
 
 
 
@@ -68,7 +68,7 @@ public class PostsRepositoryImpl implements PostsRepositoryCustom {
                         posts.category.eq(category)
                         , posts.isPublic.eq(true))
                 .groupBy(posts.id)
-                .orderBy(like.id.count().desc())
+                .orderBy(like.userId.count().desc())
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetchResults();
@@ -1,33 +1,48 @@
 package com.infinity.omos.domain;
 
 
-import com.infinity.omos.domain.Follow.Follow;
-import com.infinity.omos.domain.Like.Like;
+import com.infinity.omos.domain.Activity.ActivityType;
+import com.infinity.omos.domain.Activity.RollupGranularity;
+import com.infinity.omos.domain.Block.BlockedSet;
+import com.infinity.omos.domain.Block.BlockedSetCache;
 import com.infinity.omos.domain.Posts.Posts;
-import com.infinity.omos.domain.Scrap.Scrap;
+import com.infinity.omos.domain.Follow.QFollow;
 import com.infinity.omos.domain.User.QUser;
 import com.infinity.omos.domain.User.User;
+import com.infinity.omos.dto.DjDto;
+import com.infinity.omos.dto.PostsCursor;
+import com.infinity.omos.dto.PostsFeedDto;
+import com.infinity.omos.dto.PostsStatDto;
 import com.infinity.omos.dto.UserRequestDto;
 import com.infinity.omos.dto.UserResponseDto;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ConstructorExpression;
 import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QBean;
 import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.core.types.dsl.BooleanPath;
-import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.jpa.JPAExpressions;
-import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static com.infinity.omos.domain.Activity.QActivityRollup.activityRollup;
 import static com.infinity.omos.domain.Block.QBlock.block;
 import static com.infinity.omos.domain.Follow.QFollow.follow;
 import static com.infinity.omos.domain.Like.QLike.like;
+import static com.infinity.omos.domain.Music.QMusic.music;
 import static com.infinity.omos.domain.Posts.QPosts.posts;
 import static com.infinity.omos.domain.Scrap.QScrap.scrap;
 import static com.infinity.omos.domain.User.QUser.user;
@@ -35,7 +50,33 @@ import static com.infinity.omos.domain.User.QUser.user;
 @RequiredArgsConstructor
 @Repository
 public class QueryRepository {
+    private static final int MAX_BLOCKED_IDS_IN_QUERY = 1000;
+
+    //레코드 작성자. 메소드 파라미터 user와 헷갈리지 않게 별칭을 따로 둔다
+    private static final QUser author = new QUser("author");
+
+    //팔로워/팔로잉 목록을 보는 유저의 팔로우
+    private static final QFollow viewerFollow = new QFollow("viewerFollow");
+
+    private static final ConstructorExpression<PostsFeedDto> POSTS_FEED = Projections.constructor(PostsFeedDto.class,
+            posts.id, posts.title, posts.contents, posts.imageUrl, posts.createdDate, posts.category,
+            posts.cnt, posts.isPublic, posts.likeCount, posts.scrapCount,
+            author.id, author.nickname,
+            music.id, music.title, music.artists, music.albumTitle, music.albumImageUrl, music.syncedDate);
+
     private final JPAQueryFactory queryFactory;
+    private final BlockedSetCache blockedSetCache;
+
+    /**
+     * 레코드 목록 조회는 엔티티 대신 필요한 컬럼만 작성자, 노래와 join 해서 한번에 가져온다.
+     */
+    private JPAQuery<PostsFeedDto> selectPostsFeed() {
+        return queryFactory
+                .select(POSTS_FEED)
+                .from(posts)
+                .innerJoin(posts.userId, author)
+                .innerJoin(posts.musicId, music);
+    }
 
     /**
      * email로 id가져오기
@@ -47,52 +88,74 @@ public class QueryRepository {
         return queryFactory.select(user.id).from(user).where(user.email.eq(email)).fetchOne();
     }
 
-    public List<Posts> findPostsByCategory(Category category, int size, User user) {
-        return queryFactory.selectFrom(posts).where(posts.category.eq(category), posts.isPublic.eq(true),posts.id.notIn(block(user))).limit(size).orderBy(posts.createdDate.desc()).fetch();
+    public List<PostsFeedDto> findPostsByCategory(Category category, int size, User user) {
+        return selectPostsFeed().where(posts.category.eq(category), posts.isPublic.eq(true),notBlocked(user)).limit(size).orderBy(posts.createdDate.desc()).fetch();
     }
 
-    public List<Posts> findPostsByUserId(User userId) {
-        return queryFactory.selectFrom(posts).where(posts.userId.eq(userId)).orderBy(posts.id.desc()).fetch();
+    public List<PostsFeedDto> findPostsByUserId(User userId) {
+        return selectPostsFeed().where(posts.userId.eq(userId)).orderBy(posts.id.desc()).fetch();
     }
 
-    public List<Posts> findPublicPostsByUserId(User toUser,User fromUser) {
-        return queryFactory.selectFrom(posts).where(posts.userId.eq(toUser), posts.isPublic.eq(true), posts.id.notIn(block(fromUser))).orderBy(posts.id.desc()).fetch();
-    }
-
-    public List<Long> findPostsIdByUserId(User userId) {
-        return queryFactory.select(posts.id).from(posts).where(posts.userId.eq(userId)).fetch();
+    /**
+     * user의 레코드를 최신순으로 cursor 다음부터 size개. (user_id, id) 인덱스로 읽는다
+     */
+    public List<PostsFeedDto> findPostsByUserId(User userId, PostsCursor cursor, int size) {
+        return selectPostsFeed().where(posts.userId.eq(userId), ltPostId(cursor)).orderBy(posts.id.desc()).limit(size).fetch();
     }
 
-    public Like findLikeByUserIdPostId(User userId, Posts posts) {
-        return queryFactory.selectFrom(like).where(like.userId.eq(userId), like.postId.eq(posts)).fetchOne();
+    public List<PostsFeedDto> findPublicPostsByUserId(User toUser,User fromUser) {
+        return selectPostsFeed().where(posts.userId.eq(toUser), posts.isPublic.eq(true), notBlocked(fromUser)).orderBy(posts.id.desc()).fetch();
     }
 
-    public Scrap findScrapByUserIdPostId(User userId, Posts posts) {
-        return queryFactory.selectFrom(scrap).where(scrap.userId.eq(userId), scrap.postId.eq(posts)).fetchOne();
+    public PostsFeedDto findPostsFeedById(Long postId) {
+        return selectPostsFeed().where(posts.id.eq(postId)).fetchOne();
     }
 
-    public Follow findFollowByUserId(User toUserId, User fromUserId) {
-        return queryFactory.selectFrom(follow).where(follow.toUserId.eq(toUserId), follow.fromUserId.eq(fromUserId)).fetchOne();
+    /**
+     * 한 페이지 레코드들의 좋아요/스크랩 수와 user가 좋아요/스크랩 했는지를 쿼리 한번으로 가져온다.
+     *
+     * @return postId를 key로 하는 Map
+     */
+    public Map<Long, PostsStatDto> findPostsStats(List<Long> postIds, User user) {
+        if (postIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return queryFactory
+                .select(Projections.constructor(PostsStatDto.class,
+                        posts.id,
+                        posts.likeCount,
+                        posts.scrapCount,
+                        JPAExpressions.select(like.count()).from(like).where(like.postId.eq(posts), like.userId.eq(user)),
+                        JPAExpressions.select(scrap.count()).from(scrap).where(scrap.postId.eq(posts), scrap.userId.eq(user))))
+                .from(posts)
+                .where(posts.id.in(postIds))
+                .fetch()
+                .stream()
+                .collect(Collectors.toMap(PostsStatDto::getPostId, Function.identity()));
     }
 
-    public Boolean existsLikeByUserIdPostId(User userId, Posts postsId) {
-        Integer fetchOne = queryFactory
-                .selectOne()
-                .from(like)
-                .where(like.userId.eq(userId), like.postId.eq(postsId))
-                .fetchFirst(); // limit 1
-
-        return fetchOne != null;
+    /**
+     * afterId 다음부터 size개 레코드의 (id, like_count, scrap_count, 실제 좋아요 수, 실제 스크랩 수). 카운터 보정용
+     */
+    public List<Tuple> findPostsCounts(Long afterId, int size) {
+        return queryFactory
+                .select(posts.id,
+                        posts.likeCount,
+                        posts.scrapCount,
+                        JPAExpressions.select(like.count()).from(like).where(like.postId.eq(posts)),
+                        JPAExpressions.select(scrap.count()).from(scrap).where(scrap.postId.eq(posts)))
+                .from(posts)
+                .where(gtPostId(afterId))
+                .orderBy(posts.id.asc())
+                .limit(size)
+                .fetch();
     }
 
-    public Boolean existsScarpByUserIdPostId(User userId, Posts postsId) {
-        Integer fetchOne = queryFactory
-                .selectOne()
-                .from(scrap)
-                .where(scrap.userId.eq(userId), scrap.postId.eq(postsId))
-                .fetchFirst(); // limit 1
-
-        return fetchOne != null;
+    private BooleanExpression gtPostId(Long postId) {
+        if (postId == null) {
+            return null;
+        }
+        return posts.id.gt(postId);
     }
 
     public Boolean existsFollowByUserId(User fromUserId, User toUserId) {
@@ -115,66 +178,109 @@ public class QueryRepository {
                 .fetch();
     }
 
-    ///여기부터 페이징처리 부분
+    /**
+     * userIds 중 레코드가 있는 유저를 마지막 레코드가 최신인 순서로. (My DJ 목록, 팔로잉 id는 FollowGraphIndex에서 받는다)
+     */
+    public List<DjDto> findDjsByLatestPost(Collection<Long> userIds) {
+        return queryFactory
+                .select(Projections.constructor(DjDto.class, author.id, author.nickname, author.profileUrl))
+                .from(posts)
+                .innerJoin(posts.userId, author)
+                .where(posts.userId.id.in(userIds))
+                .groupBy(author.id, author.nickname, author.profileUrl)
+                .orderBy(posts.id.max().desc())
+                .fetch();
+    }
 
-    public List<Posts> findAllMyDj(User userId, Long postId, int pageSize) {
+    /**
+     * userIds가 쓴 공개 레코드의 (id, 작성자 id)를 최신순으로 postId 다음부터 size개. (My DJ 타임라인을 채울 때, (user_id, id) 인덱스)
+     */
+    public List<Tuple> findPublicPostIdsByUserIds(Collection<Long> userIds, Long postId, int size) {
         return queryFactory
-                .selectFrom(posts)
-                .innerJoin(follow).on(posts.userId.eq(follow.toUserId))
+                .select(posts.id, posts.userId.id)
+                .from(posts)
+                .where(
+                        posts.userId.id.in(userIds),
+                        posts.isPublic.eq(true),
+                        ltPostId(postId))
+                .orderBy(posts.id.desc())
+                .limit(size)
+                .fetch();
+    }
+
+    ///여기부터 페이징처리 부분
+
+    public List<PostsFeedDto> findAllMyDj(User userId, Long postId, int pageSize) {
+        return selectPostsFeed()
                 .where(
                         ltPostId(postId),
-                        follow.fromUserId.eq(userId),
-                        posts.id.notIn(block(userId)),
+                        posts.userId.id.in(JPAExpressions.select(follow.toUserId.id).from(follow).where(follow.fromUserId.eq(userId))),
+                        notBlocked(userId),
                         posts.isPublic.eq(true)
                 )
-                .groupBy(posts.id)
                 .orderBy(posts.id.desc())
                 .limit(pageSize)
                 .fetch();
     }
 
-    public List<Posts> findAllByMusicIdByRandom(Long postId, String musicId, int pageSize, User user) {
+    /**
+     * 랜덤순 pool을 만들 공개 레코드 id. id 순서
+     */
+    public List<Long> findPublicPostIdsByMusicId(String musicId) {
         return queryFactory
-                .selectFrom(posts)
+                .select(posts.id)
+                .from(posts)
                 .where(
-                        ltPostId(postId),
                         posts.musicId.id.eq(musicId),
-                        posts.isPublic.eq(true),
-                        posts.id.notIn(block(user)))
-                .groupBy(posts.id)
-                .orderBy(Expressions.numberTemplate(Double.class, "function('rand')").asc())
-                .limit(pageSize)
+                        posts.isPublic.eq(true))
+                .orderBy(posts.id.asc())
                 .fetch();
     }
 
-    public List<Posts> findAllByMusicIdByCreatedDate(Long postId, String musicId, int pageSize, User user) {
+    public List<Long> findPublicPostIdsByCategory(Category category) {
         return queryFactory
-                .selectFrom(posts)
+                .select(posts.id)
+                .from(posts)
                 .where(
-                        ltPostId(postId),
+                        posts.category.eq(category),
+                        posts.isPublic.eq(true))
+                .orderBy(posts.id.asc())
+                .fetch();
+    }
+
+    /**
+     * 랜덤순 pool, 활동 집계에서 꺼낸 id의 레코드. 그 사이 비공개로 바뀌었거나 차단한 레코드는 빠지고, 순서는 보장하지 않는다.
+     * user가 null이면 차단은 거르지 않는다.
+     */
+    public List<PostsFeedDto> findPublicPostsByIds(List<Long> postIds, User user) {
+        return selectPostsFeed()
+                .where(
+                        posts.id.in(postIds),
+                        posts.isPublic.eq(true),
+                        notBlocked(user))
+                .fetch();
+    }
+
+    public List<PostsFeedDto> findAllByMusicIdByCreatedDate(PostsCursor cursor, String musicId, int pageSize, User user) {
+        return selectPostsFeed()
+                .where(
+                        ltPostId(cursor),
                         posts.musicId.id.eq(musicId),
                         posts.isPublic.eq(true),
-                        posts.id.notIn(block(user)))
-                .groupBy(posts.id)
+                        notBlocked(user))
                 .orderBy(posts.id.desc())
                 .limit(pageSize)
                 .fetch();
     }
 
-    public List<Posts> findAllByMusicIdByLike(Long postId, String musicId, int pageSize, User user) {
-        Long cnt = findLikeCount(postId);
-
-        return queryFactory.selectFrom(posts)
-                .leftJoin(like).on(like.postId.eq(posts))
+    public List<PostsFeedDto> findAllByMusicIdByLike(PostsCursor cursor, String musicId, int pageSize, User user) {
+        return selectPostsFeed()
                 .where(
                         posts.musicId.id.eq(musicId)
                         , posts.isPublic.eq(true),
-                        posts.id.notIn(block(user)))
-                .groupBy(posts.id)
-                .having(
-                        ltPostIdByLike(postId, cnt)
-                )
-                .orderBy(like.id.count().desc(), posts.id.desc())
+                        ltPostIdByLike(cursor),
+                        notBlocked(user))
+                .orderBy(posts.likeCount.desc(), posts.id.desc())
                 .limit(pageSize)
                 .fetch();
     }
@@ -186,73 +292,61 @@ public class QueryRepository {
         return posts.id.lt(postId);
     }
 
-    private BooleanExpression ltPostIdByLike(Long postId, Long cnt) {
-        if (postId == null) {
+    private BooleanExpression ltPostId(PostsCursor cursor) {
+        if (cursor == null) {
             return null;
         }
-        return (like.id.count().eq(cnt).and(posts.id.lt(postId)))
-                .or(like.id.count().lt(cnt));
+        return posts.id.lt(cursor.getPostId());
     }
 
-    public List<Posts> findAllByCategoryOrderByLike(Category category, Long postId, int pageSize, User user) {
-        Long cnt = findLikeCount(postId);
+    /**
+     * (like_count, id) < (cursor 정렬값, cursor postId). 인덱스 (.., like_count, id)를 그대로 타고 이어서 읽는다.
+     */
+    private BooleanExpression ltPostIdByLike(PostsCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        int cnt = (int) cursor.getSortKey();
+        return (posts.likeCount.eq(cnt).and(posts.id.lt(cursor.getPostId())))
+                .or(posts.likeCount.lt(cnt));
+    }
 
-        return queryFactory.selectFrom(posts)
-                .leftJoin(like).on(like.postId.eq(posts))
+    public List<PostsFeedDto> findAllByCategoryOrderByLike(Category category, PostsCursor cursor, int pageSize, User user) {
+        return selectPostsFeed()
                 .where(
                         posts.category.eq(category)
                         , posts.isPublic.eq(true),
-                        posts.id.notIn(block(user)))
-                .groupBy(posts.id)
-                .having(
-                        ltPostIdByLike(postId, cnt)
-                )
-                .orderBy(like.id.count().desc(), posts.id.desc())
+                        ltPostIdByLike(cursor),
+                        notBlocked(user))
+                .orderBy(posts.likeCount.desc(), posts.id.desc())
                 .limit(pageSize)
                 .fetch();
 
     }
 
-    private Long findLikeCount(Long postId) {
-        return queryFactory
-                .select(like.id.count())
-                .from(posts)
-                .leftJoin(like)
-                .on(like.postId.eq(posts))
-                .where(isPostId(postId))
-                .fetchOne();
-    }
-
-    private BooleanExpression isPostId(Long postId) {
+    /**
+     * cursor 없이 postId만 보내는 예전 클라이언트용. 좋아요순 cursor의 정렬값을 만든다.
+     */
+    public Integer findLikeCount(Long postId) {
         if (postId == null) {
             return null;
         }
-        return posts.id.eq(postId);
+        return queryFactory
+                .select(posts.likeCount)
+                .from(posts)
+                .where(posts.id.eq(postId))
+                .fetchOne();
     }
 
 
-    public List<Posts> findAllByCategoryOrderByRandom(Category category, Long postId, int pageSize, User user) {
+    public List<PostsFeedDto> findAllByCategoryOrderByCreatedDate(Category category, PostsCursor cursor, int pageSize, User user) {
 
-        return queryFactory.selectFrom(posts)
+        return selectPostsFeed()
                 .where(
-                        ltPostId(postId),
+                        ltPostId(cursor),
                         posts.category.eq(category),
                         posts.isPublic.eq(true),
-                        posts.id.notIn(block(user)))
-                .orderBy(Expressions.numberTemplate(Double.class, "function('rand')").asc())
-                .limit(pageSize)
-                .fetch();
-
-    }
-
-    public List<Posts> findAllByCategoryOrderByCreatedDate(Category category, Long postId, int pageSize, User user) {
-
-        return queryFactory.selectFrom(posts)
-                .where(
-                        ltPostId(postId),
-                        posts.category.eq(category),
-                        posts.isPublic.eq(true),
-                        posts.id.notIn(block(user)))
+                        notBlocked(user))
                 .orderBy(posts.id.desc())
                 .limit(pageSize)
                 .fetch();
@@ -261,24 +355,50 @@ public class QueryRepository {
 
     ///여기까지 페이징처리부분
 
-    private JPQLQuery<Long> block(User user) {
-        return JPAExpressions.select(posts.id)
-                .from(posts)
-                .innerJoin(block).on(
-                        posts.id.eq(block.postId.id).or(posts.userId.eq(block.toUserId)),
-                        block.fromUserId.eq(user)
-                );
+    /**
+     * user가 차단한 레코드와 차단한 유저의 레코드를 뺀다.
+     * 차단 목록은 BlockedSetCache에서 가져와 NOT IN 리터럴 목록으로 넣고, 목록이 너무 길면 block 테이블 서브쿼리를 쓴다.
+     * user가 null이면(특정 유저를 위한 목록이 아니면) 거르지 않는다.
+     */
+    private BooleanExpression notBlocked(User user) {
+        if (user == null) {
+            return null;
+        }
+        BlockedSet blockedSet = blockedSetCache.get(user.getId());
+        BooleanExpression notBlockedPost = null;
+        BooleanExpression notBlockedUser = null;
+
+        if (blockedSet.getPostCount() > MAX_BLOCKED_IDS_IN_QUERY) {
+            notBlockedPost = posts.id.notIn(JPAExpressions.select(block.postId.id).from(block)
+                    .where(block.fromUserId.eq(user), block.postId.isNotNull()));
+        } else if (blockedSet.getPostCount() > 0) {
+            notBlockedPost = posts.id.notIn(blockedSet.getPostIds());
+        }
+
+        if (blockedSet.getUserCount() > MAX_BLOCKED_IDS_IN_QUERY) {
+            notBlockedUser = posts.userId.id.notIn(JPAExpressions.select(block.toUserId.id).from(block)
+                    .where(block.fromUserId.eq(user), block.toUserId.isNotNull()));
+        } else if (blockedSet.getUserCount() > 0) {
+            notBlockedUser = posts.userId.id.notIn(blockedSet.getUserIds());
+        }
+
+        if (notBlockedPost == null) {
+            return notBlockedUser;
+        }
+        return notBlockedUser == null ? notBlockedPost : notBlockedPost.and(notBlockedUser);
     }
 
 
-    public String findMusicIdOnToday() {
-        LocalDateTime start = LocalDate.now().minusDays(1).atStartOfDay();
-        LocalDateTime end = LocalDate.now().minusDays(1).atTime(LocalTime.MAX);
+    /**
+     * [start, end) 동안 가장 많이 레코드가 쓰인 노래. (TodayService가 하루에 한번 스냅샷을 만들 때)
+     */
+    public String findMusicIdOnToday(LocalDateTime start, LocalDateTime end) {
         return queryFactory
                 .select(posts.musicId.id)
                 .from(posts)
                 .where(
-//                        posts.createdDate.between(start, end),
+                        posts.createdDate.goe(start),
+                        posts.createdDate.lt(end),
                         posts.isPublic.eq(true)
                 )
                 .groupBy(posts.musicId)
@@ -286,29 +406,24 @@ public class QueryRepository {
                 .fetchFirst();
     }
 
-    public List<Posts> findPostsOnToday() {
-        LocalDateTime start = LocalDate.now().minusDays(1).atStartOfDay();
-        LocalDateTime end = LocalDate.now().minusDays(1).atTime(LocalTime.MAX);
-        return queryFactory.selectFrom(posts)
-                .leftJoin(like)
-                .on(posts.id.eq(like.postId.id))
+    public List<PostsFeedDto> findPostsOnToday(LocalDateTime start, LocalDateTime end) {
+        return selectPostsFeed()
                 .where(
-//                        posts.createdDate.between(start, end),
+                        posts.createdDate.goe(start),
+                        posts.createdDate.lt(end),
                         posts.isPublic.eq(true)
                 )
-                .groupBy(posts.id)
-                .orderBy(like.id.count().desc())
+                .orderBy(posts.likeCount.desc(), posts.id.desc())
                 .limit(5)
                 .fetch();
     }
 
-    public List<Long> findDjOnToday() {
-        LocalDateTime start = LocalDate.now().minusDays(1).atStartOfDay();
-        LocalDateTime end = LocalDate.now().minusDays(1).atTime(LocalTime.MAX);
+    public List<Long> findDjOnToday(LocalDateTime start, LocalDateTime end) {
         return queryFactory.select(posts.userId.id)
                 .from(posts)
                 .where(
-//                        posts.createdDate.between(start, end),
+                        posts.createdDate.goe(start),
+                        posts.createdDate.lt(end),
                         posts.isPublic.eq(true)
                 )
                 .groupBy(posts.userId.id)
@@ -317,25 +432,82 @@ public class QueryRepository {
                 .fetch();
     }
 
+    /**
+     * type의 [start, end) 합계가 큰 target id 순으로 size개. [dayStart, dayEnd)는 일 단위 집계에서, 그 앞뒤는 시간 단위 집계에서 더한다.
+     * 일 단위로 읽을 날이 없으면 dayStart, dayEnd를 같게 준다. 읽는 행 수는 기간 길이에만 비례한다.
+     */
+    public List<String> findTopActivityTargets(ActivityType type, LocalDateTime start, LocalDateTime end,
+                                               LocalDateTime dayStart, LocalDateTime dayEnd, int size) {
+        NumberExpression<Long> total = activityRollup.total.sum();
+        return queryFactory
+                .select(activityRollup.targetId)
+                .from(activityRollup)
+                .where(
+                        activityRollup.type.eq(type),
+                        activityRollup.granularity.eq(RollupGranularity.DAY)
+                                .and(activityRollup.bucket.goe(dayStart)).and(activityRollup.bucket.lt(dayEnd))
+                                .or(activityRollup.granularity.eq(RollupGranularity.HOUR)
+                                        .and(activityRollup.bucket.goe(start).and(activityRollup.bucket.lt(dayStart))
+                                                .or(activityRollup.bucket.goe(dayEnd).and(activityRollup.bucket.lt(end)))))
+                )
+                .groupBy(activityRollup.targetId)
+                .having(total.gt(0L))
+                .orderBy(total.desc(), activityRollup.targetId.asc())
+                .limit(size)
+                .fetch();
+    }
+
+    //(target id, 합계). 시간 단위 집계를 하루치로 합칠 때
+    public List<Tuple> sumActivityHours(ActivityType type, LocalDateTime start, LocalDateTime end) {
+        return queryFactory
+                .select(activityRollup.targetId, activityRollup.total.sum())
+                .from(activityRollup)
+                .where(
+                        activityRollup.type.eq(type),
+                        activityRollup.granularity.eq(RollupGranularity.HOUR),
+                        activityRollup.bucket.goe(start),
+                        activityRollup.bucket.lt(end)
+                )
+                .groupBy(activityRollup.targetId)
+                .fetch();
+    }
+
+    /**
+     * user의 레코드 중 하나를 고른다. (user_id, id) 인덱스 양 끝에서 id의 최소, 최대를 읽고
+     * 그 사이 임의의 값 이상인 첫 레코드를 인덱스로 바로 찾는다. 지워진 id 바로 다음 레코드가 조금 더 자주 뽑힌다.
+     */
     public Posts findPostByRandom(Long userId) {
         if (userId == null) {
             return null;
         }
+        Tuple range = queryFactory
+                .select(posts.id.min(), posts.id.max())
+                .from(posts)
+                .where(posts.userId.id.eq(userId))
+                .fetchOne();
+        Long minId = range == null ? null : range.get(0, Long.class);
+        Long maxId = range == null ? null : range.get(1, Long.class);
+        if (minId == null || maxId == null) {
+            return null;
+        }
+        long randomId = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
         return queryFactory.selectFrom(posts)
+                .innerJoin(posts.musicId, music).fetchJoin()
                 .where(
-                        posts.userId.id.eq(userId)
+                        posts.userId.id.eq(userId),
+                        posts.id.goe(randomId)
                 )
-                .orderBy(Expressions.numberTemplate(Double.class, "function('rand')").asc())
+                .orderBy(posts.id.asc())
                 .fetchFirst();
     }
 
-    public List<Posts> findScrapedPostsByUserId(User userId, Integer size) {
-        JPAQuery<Posts> jpaQuery = queryFactory.selectFrom(posts)
+    public List<PostsFeedDto> findScrapedPostsByUserId(User userId, Integer size) {
+        JPAQuery<PostsFeedDto> jpaQuery = selectPostsFeed()
                 .innerJoin(scrap).on(posts.id.eq(scrap.postId.id))
                 .where(
                         posts.isPublic.eq(true),
                         scrap.userId.eq(userId),
-                        posts.id.notIn(block(userId))
+                        notBlocked(userId)
                 )
                 .orderBy(scrap.createdDate.desc());
 
@@ -347,13 +519,13 @@ public class QueryRepository {
 
     }
 
-    public List<Posts> findLikedPostsByUserId(User userId, Integer size) {
-        JPAQuery<Posts> jpaQuery = queryFactory.selectFrom(posts)
+    public List<PostsFeedDto> findLikedPostsByUserId(User userId, Integer size) {
+        JPAQuery<PostsFeedDto> jpaQuery = selectPostsFeed()
                 .innerJoin(like).on(posts.id.eq(like.postId.id))
                 .where(
                         posts.isPublic.eq(true),
                         like.userId.eq(userId),
-                        posts.id.notIn(block(userId))
+                        notBlocked(userId)
                 )
                 .orderBy(like.createdDate.desc());
 
@@ -365,39 +537,53 @@ public class QueryRepository {
 
     }
 
-    public List<UserResponseDto> selectFollowing(User toUserId){
-        return queryFactory.from(user)
-                .select(Projections.fields(UserResponseDto.class,
-                        user.id.as("userId"),
-                        user.profileUrl,
-                        user.nickname
-                        ))
-                .leftJoin(follow).on(user.id.eq(follow.toUserId.id))
-                .where(follow.fromUserId.eq(toUserId))
+    /**
+     * owner가 팔로우하는 유저 목록. 각 유저를 viewer가 팔로우하는지는 viewer의 팔로우와 left join 해서 같이 가져온다.
+     * follow 기본키 (from_user_id, to_user_id) 순서로 lastUserId 다음부터 size개
+     */
+    public List<UserResponseDto> selectFollowing(Long ownerId, Long viewerId, Long lastUserId, int size) {
+        return queryFactory.from(follow)
+                .select(followUser(follow.toUserId.id))
+                .innerJoin(user).on(user.id.eq(follow.toUserId.id))
+                .leftJoin(viewerFollow).on(viewerFollow.fromUserId.id.eq(viewerId), viewerFollow.toUserId.id.eq(user.id))
+                .where(follow.fromUserId.id.eq(ownerId), ltFollowUserId(follow.toUserId.id, lastUserId))
+                .orderBy(follow.toUserId.id.desc())
+                .limit(size)
                 .fetch();
     }
 
-//    private BooleanPath existsFollowByUserId(User fromUser, com.infinity.omos.domain.User.QUser user) {
-//        Integer fetchOne = JPAExpressions
-//                .selectOne()
-//                .from(follow)
-//                .where(follow.fromUserId.eq(fromUser), follow.toUserId.eq(user))
-//                .fetchFirst(); // limit 1
-//
-//        return (BooleanPath)(Boolean)(fetchOne != null);
-//    }
-
-    public List<UserResponseDto> selectFollower(User toUserId){
-        return queryFactory.from(user)
-                .select(Projections.fields(UserResponseDto.class,
-                        user.id.as("userId"),
-                        user.profileUrl,
-                        user.nickname))
-                .leftJoin(follow).on(user.id.eq(follow.fromUserId.id))
-                .where(follow.toUserId.eq(toUserId))
+    /**
+     * owner를 팔로우하는 유저 목록. (to_user_id, from_user_id) 인덱스 순서로 읽고 isFollowed는 selectFollowing과 같다
+     */
+    public List<UserResponseDto> selectFollower(Long ownerId, Long viewerId, Long lastUserId, int size) {
+        return queryFactory.from(follow)
+                .select(followUser(follow.fromUserId.id))
+                .innerJoin(user).on(user.id.eq(follow.fromUserId.id))
+                .leftJoin(viewerFollow).on(viewerFollow.fromUserId.id.eq(viewerId), viewerFollow.toUserId.id.eq(user.id))
+                .where(follow.toUserId.id.eq(ownerId), ltFollowUserId(follow.fromUserId.id, lastUserId))
+                .orderBy(follow.fromUserId.id.desc())
+                .limit(size)
                 .fetch();
     }
 
+    private static QBean<UserResponseDto> followUser(NumberPath<Long> userId) {
+        return Projections.fields(UserResponseDto.class,
+                userId.as("userId"),
+                user.profileUrl,
+                user.nickname,
+                new CaseBuilder()
+                        .when(viewerFollow.fromUserId.id.isNotNull()).then(true)
+                        .otherwise(false)
+                        .as("isFollowed"));
+    }
+
+    private BooleanExpression ltFollowUserId(NumberPath<Long> userId, Long lastUserId) {
+        if (lastUserId == null) {
+            return null;
+        }
+        return userId.lt(lastUserId);
+    }
+
     public List<UserRequestDto> selectBlockList(User fromUserId){
         return queryFactory.from(user)
                 .select(Projections.constructor(UserRequestDto.class,
@@ -3,33 +3,61 @@ package com.infinity.omos.domain.Scrap;
 import com.infinity.omos.domain.BaseTimeEntity;
 import com.infinity.omos.domain.Posts.Posts;
 import com.infinity.omos.domain.User.User;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 
+/**
+ * 스크랩. 기본키는 (user_id, post_id)이고, 레코드 쪽에서 찾을 때는 (post_id, user_id) 인덱스를 쓴다.
+ * 저장 방식은 Like와 같다.
+ */
 @Getter
-@AllArgsConstructor
 @Entity
-@Builder
-@NoArgsConstructor
-public class Scrap extends BaseTimeEntity {
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@IdClass(ScrapId.class)
+@Table(indexes = @Index(name = "idx_scrap_post_user", columnList = "post_id, user_id"))
+public class Scrap extends BaseTimeEntity implements Persistable<ScrapId> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id")
     private User userId;
 
 
+    @Id
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="post_id")
     private Posts postId;
+
+    @Transient
+    private boolean isNew = true;
+
+    @Builder
+    public Scrap(User userId, Posts postId) {
+        this.userId = userId;
+        this.postId = postId;
+    }
+
+    @Override
+    public ScrapId getId() {
+        return new ScrapId(userId.getId(), postId.getId());
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
 }
@@ -3,13 +3,40 @@ package com.infinity.omos.domain.Scrap;
 import com.infinity.omos.domain.Posts.Posts;
 import com.infinity.omos.domain.Scrap.Scrap;
 import com.infinity.omos.domain.User.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ScrapRepository extends JpaRepository<Scrap,Long> {
+import java.util.Collection;
+import java.util.List;
+
+public interface ScrapRepository extends JpaRepository<Scrap,ScrapId> {
     boolean existsByPostId(Posts postsId);
     int countByPostId(Posts postId);
-    void deleteAllByPostId(Posts postsId);
-    void deleteAllByUserId(User userId);
+    int countByUserId(User userId);
+
+    //한 건씩 읽어서 지우지 않고 delete 쿼리 한번으로 지운다
+    @Modifying
+    @Query("delete from Scrap s where s.postId = :postId")
+    int deleteAllByPostId(@Param("postId") Posts postsId);
+
+    @Modifying
+    @Query("delete from Scrap s where s.userId = :userId")
+    int deleteAllByUserId(@Param("userId") User userId);
+
+    //탈퇴한 유저의 스크랩을 나눠서 지울 때 쓴다
+    @Query("select s.postId.id from Scrap s where s.userId.id = :userId")
+    List<Long> findPostIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Scrap s where s.userId.id = :userId and s.postId.id in :postIds")
+    int deleteAllByUserIdAndPostIdIn(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
 
+    //엔티티를 읽지 않고 (user_id, post_id) 키로 바로 지운다
+    @Modifying
+    @Query("delete from Scrap s where s.userId.id = :userId and s.postId.id = :postId")
+    int deleteByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId);
 
 }
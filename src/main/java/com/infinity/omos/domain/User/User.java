@@ -14,6 +14,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
 
 @Getter
 @AllArgsConstructor
@@ -41,6 +42,9 @@ public class User extends BaseTimeEntity {
     @Enumerated(EnumType.STRING)
     private Authority authority;
 
+    //탈퇴 처리를 시작한 시각. 기록을 다 지우면 유저 행과 같이 지워진다
+    private LocalDateTime purgeRequestedDate;
+
     public static User toUser(SignUpDto signUpDto, Authority authority, PasswordEncoder passwordEncoder) {
         return User.builder()
                 .email(signUpDto.getEmail())
@@ -77,5 +81,11 @@ public class User extends BaseTimeEntity {
     public void updatePassword(String password , PasswordEncoder passwordEncoder){
         this.password = passwordEncoder.encode(password);
     }
+
+    public void requestPurge(){
+        if (this.purgeRequestedDate == null) {
+            this.purgeRequestedDate = LocalDateTime.now();
+        }
+    }
 }
 
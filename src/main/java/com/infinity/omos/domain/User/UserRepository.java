@@ -2,7 +2,9 @@ package com.infinity.omos.domain.User;
 
 import com.infinity.omos.domain.User.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -14,4 +16,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByPassword(String password);
 
     boolean existsByNickname(String nickName);
+
+    boolean existsByIdAndPurgeRequestedDateIsNotNull(Long id);
+
+    @Query("select u.id from User u where u.purgeRequestedDate is not null")
+    List<Long> findPurgingUserIds();
 }
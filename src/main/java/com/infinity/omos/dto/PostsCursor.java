@@ -0,0 +1,54 @@
+package com.infinity.omos.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 레코드 목록 페이징 cursor. (정렬값, postId)를 base64로 감싼 문자열로 주고받는다.
+ * 최신순은 정렬값이 postId, 좋아요순은 like_count 이다. 랜덤순은 정렬값이 pool seed이고, pool 안의 위치(position)를 같이 담는다.
+ * 클라이언트는 받은 목록의 마지막 cursor를 그대로 다시 보내면 되고 내용을 해석하면 안된다.
+ */
+@Getter
+public class PostsCursor {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public static final int NO_POSITION = -1;
+
+    private final long sortKey;
+    private final long postId;
+    private final int position;
+
+    public PostsCursor(long sortKey, long postId) {
+        this(sortKey, postId, NO_POSITION);
+    }
+
+    public PostsCursor(long sortKey, long postId, int position) {
+        this.sortKey = sortKey;
+        this.postId = postId;
+        this.position = position;
+    }
+
+    public String encode() {
+        String value = sortKey + ":" + postId + (position == NO_POSITION ? "" : ":" + position);
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //position이 없는 예전 cursor도 읽는다
+    public static PostsCursor decode(String cursor) {
+        try {
+            String[] values = new String(DECODER.decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (values.length == 2) {
+                return new PostsCursor(Long.parseLong(values[0]), Long.parseLong(values[1]));
+            }
+            if (values.length == 3) {
+                return new PostsCursor(Long.parseLong(values[0]), Long.parseLong(values[1]), Integer.parseInt(values[2]));
+            }
+            throw new IllegalArgumentException(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("잘못된 cursor입니다");
+        }
+    }
+}
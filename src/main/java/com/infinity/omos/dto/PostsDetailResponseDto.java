@@ -40,6 +40,10 @@ public class PostsDetailResponseDto {
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Boolean isPublic;
 
+    //다음 페이지 요청 시 마지막 레코드의 cursor를 그대로 보내면 된다
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String cursor;
+
 
 
 
@@ -0,0 +1,73 @@
+package com.infinity.omos.dto;
+
+import com.infinity.omos.domain.Category;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 레코드 목록 조회용 한 줄. 엔티티 대신 QueryRepository에서 레코드, 작성자, 노래 컬럼을 한번에 골라 담는다.
+ */
+@Getter
+public class PostsFeedDto {
+    private final Long postId;
+    private final String title;
+    private final String contents;
+    private final String imageUrl;
+    private final LocalDateTime createdDate;
+    private final Category category;
+    private final int cnt;
+    private final Boolean isPublic;
+    private final int likeCount;
+    private final int scrapCount;
+
+    private final Long userId;
+    private final String nickname;
+
+    private final String musicId;
+    private final String musicTitle;
+    private final List<Artists> artists;
+    private final String albumTitle;
+    private final String albumImageUrl;
+    private final LocalDateTime musicSyncedDate;
+
+    public PostsFeedDto(Long postId, String title, String contents, String imageUrl, LocalDateTime createdDate, Category category,
+                        Integer cnt, Boolean isPublic, Integer likeCount, Integer scrapCount,
+                        Long userId, String nickname,
+                        String musicId, String musicTitle, List<Artists> artists, String albumTitle, String albumImageUrl, LocalDateTime musicSyncedDate) {
+        this.postId = postId;
+        this.title = title;
+        this.contents = contents;
+        this.imageUrl = imageUrl;
+        this.createdDate = createdDate;
+        this.category = category;
+        this.cnt = cnt;
+        this.isPublic = isPublic;
+        this.likeCount = likeCount;
+        this.scrapCount = scrapCount;
+        this.userId = userId;
+        this.nickname = nickname;
+        this.musicId = musicId;
+        this.musicTitle = musicTitle;
+        this.artists = artists;
+        this.albumTitle = albumTitle;
+        this.albumImageUrl = albumImageUrl;
+        this.musicSyncedDate = musicSyncedDate;
+    }
+
+    //Music.isSynced와 같다. 동기화되지 않은 노래는 spotify에서 가져와야 한다
+    public boolean isMusicSynced() {
+        return musicSyncedDate != null && musicTitle != null;
+    }
+
+    public MusicDto toMusicDto() {
+        return MusicDto.builder()
+                .musicId(musicId)
+                .musicTitle(musicTitle)
+                .artists(artists)
+                .albumTitle(albumTitle)
+                .albumImageUrl(albumImageUrl)
+                .build();
+    }
+}
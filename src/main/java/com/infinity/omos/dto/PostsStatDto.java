@@ -0,0 +1,23 @@
+package com.infinity.omos.dto;
+
+import lombok.Getter;
+
+/**
+ * 레코드 하나의 좋아요/스크랩 수와 조회한 유저가 좋아요/스크랩 했는지
+ */
+@Getter
+public class PostsStatDto {
+    private final Long postId;
+    private final int likeCnt;
+    private final int scrapCnt;
+    private final Boolean isLiked;
+    private final Boolean isScraped;
+
+    public PostsStatDto(Long postId, Integer likeCnt, Integer scrapCnt, Long likedCnt, Long scrapedCnt) {
+        this.postId = postId;
+        this.likeCnt = likeCnt;
+        this.scrapCnt = scrapCnt;
+        this.isLiked = likedCnt > 0;
+        this.isScraped = scrapedCnt > 0;
+    }
+}
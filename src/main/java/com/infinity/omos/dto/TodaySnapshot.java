@@ -0,0 +1,31 @@
+package com.infinity.omos.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 투데이 화면의 오늘의 노래, 인기 레코드, 추천 DJ. 모든 유저에게 같으므로 하루에 한번 만들어 JSON으로 미리 직렬화해 둔다.
+ * 만든 뒤에는 바뀌지 않고, 다시 만들면 통째로 바꿔 끼운다.
+ */
+@Getter
+public class TodaySnapshot {
+    private final byte[] musicOfToday;
+    private final byte[] famousRecords;
+    private final byte[] recommendedDj;
+
+    //집계한 기간 [start, end)
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final LocalDateTime builtDate;
+
+    public TodaySnapshot(byte[] musicOfToday, byte[] famousRecords, byte[] recommendedDj,
+                         LocalDateTime start, LocalDateTime end, LocalDateTime builtDate) {
+        this.musicOfToday = musicOfToday;
+        this.famousRecords = famousRecords;
+        this.recommendedDj = recommendedDj;
+        this.start = start;
+        this.end = end;
+        this.builtDate = builtDate;
+    }
+}
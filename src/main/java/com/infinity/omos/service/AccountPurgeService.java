@@ -0,0 +1,97 @@
+package com.infinity.omos.service;
+
+import com.infinity.omos.domain.Activity.ActivityType;
+import com.infinity.omos.domain.Follow.FollowRepository;
+import com.infinity.omos.domain.Like.LikeRepository;
+import com.infinity.omos.domain.Posts.PostsRepository;
+import com.infinity.omos.domain.Scrap.ScrapRepository;
+import com.infinity.omos.domain.User.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 탈퇴한 유저의 좋아요, 스크랩, 팔로우를 size개씩 지운다. 각 메소드가 트랜잭션 하나라서
+ * 기록이 많은 유저도 락을 오래 잡지 않는다. 좋아요/스크랩을 지울 때는 레코드의 like_count, scrap_count도 같이 줄이고,
+ * 좋아요는 좋아요 취소처럼 활동 집계(POST_LIKES)에서도 뺀다. 지우는 중이라는 표시는 user.purge_requested_date에 남긴다.
+ * 각 메소드는 지운 개수를 반환하고, size보다 작으면 더 지울 것이 없다.
+ */
+@Service
+@RequiredArgsConstructor
+public class AccountPurgeService {
+
+    private final LikeRepository likeRepository;
+    private final ScrapRepository scrapRepository;
+    private final FollowRepository followRepository;
+    private final PostsRepository postsRepository;
+    private final UserRepository userRepository;
+    private final ActivityCounter activityCounter;
+
+    @Transactional
+    public void markPurging(Long userId) {
+        userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"))
+                .requestPurge();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isPurging(Long userId) {
+        return userRepository.existsByIdAndPurgeRequestedDateIsNotNull(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findPurgingUserIds() {
+        return userRepository.findPurgingUserIds();
+    }
+
+    @Transactional
+    public int purgeLikes(Long userId, int size) {
+        List<Long> postIds = likeRepository.findPostIdsByUserId(userId, PageRequest.of(0, size));
+        if (postIds.isEmpty()) {
+            return 0;
+        }
+        likeRepository.deleteAllByUserIdAndPostIdIn(userId, postIds);
+        postsRepository.decreaseLikeCounts(postIds);
+        LocalDateTime now = LocalDateTime.now();
+        for (Long postId : postIds) {
+            activityCounter.record(ActivityType.POST_LIKES, postId, now, -1);
+        }
+        return postIds.size();
+    }
+
+    @Transactional
+    public int purgeScraps(Long userId, int size) {
+        List<Long> postIds = scrapRepository.findPostIdsByUserId(userId, PageRequest.of(0, size));
+        if (postIds.isEmpty()) {
+            return 0;
+        }
+        scrapRepository.deleteAllByUserIdAndPostIdIn(userId, postIds);
+        postsRepository.decreaseScrapCounts(postIds);
+        return postIds.size();
+    }
+
+    //팔로잉을 먼저 지우고, 다 지웠으면 팔로워를 지운다
+    @Transactional
+    public int purgeFollows(Long userId, int size) {
+        List<Long> toUserIds = followRepository.findToUserIdsByFromUserId(userId, PageRequest.of(0, size));
+        if (!toUserIds.isEmpty()) {
+            followRepository.deleteAllByFromUserIdAndToUserIdIn(userId, toUserIds);
+            return toUserIds.size();
+        }
+        List<Long> fromUserIds = followRepository.findFromUserIdsByToUserId(userId, PageRequest.of(0, size));
+        if (fromUserIds.isEmpty()) {
+            return 0;
+        }
+        followRepository.deleteAllByToUserIdAndFromUserIdIn(userId, fromUserIds);
+        return fromUserIds.size();
+    }
+
+    @Transactional
+    public void deleteUser(Long userId) {
+        userRepository.deleteById(userId);
+    }
+}
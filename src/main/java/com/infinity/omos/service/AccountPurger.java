@@ -0,0 +1,122 @@
+package com.infinity.omos.service;
+
+import com.infinity.omos.domain.Follow.FollowGraphIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+/**
+ * 탈퇴한 유저의 기록을 {@link AccountPurgeService}로 조금씩 지우고 마지막에 유저를 지운다.
+ * 기록이 적으면 탈퇴 요청 안에서 바로, 많으면 전용 스레드에서 나눠서 지운다.
+ * 전용 스레드에서 지우는 유저는 DB(user.purge_requested_date)에 표시해 두므로, 지우는 중에 앱이 내려가거나 실패해도
+ * 다음에 앱이 뜰 때 이어서 지운다. 지우는 중인 유저는 {@link #isPurging}으로 확인할 수 있고, 그동안 로그인할 수 없다.
+ * 중간에 실패하면 남은 기록은 그대로 둔다. (좋아요/스크랩 수는 PostsCountScheduler가 맞춘다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountPurger {
+
+    private static final int CHUNK_SIZE = 500;
+    //이보다 기록이 적으면 탈퇴 요청 안에서 지운다
+    public static final int INLINE_LIMIT = 1_000;
+
+    private final AccountPurgeService accountPurgeService;
+    private final FollowGraphIndex followGraphIndex;
+
+    //이 인스턴스의 전용 스레드에 넣은 유저. 같은 유저를 두번 넣지 않는 데 쓴다
+    private final Set<Long> purging = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "account-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        try {
+            for (Long userId : accountPurgeService.findPurgingUserIds()) {
+                log.info("탈퇴 유저 {} 정리를 이어서 합니다", userId);
+                submit(userId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("탈퇴 유저 정리 재개 실패: {}", e.getMessage());
+        }
+    }
+
+    public boolean isPurging(Long userId) {
+        return userId != null && (purging.contains(userId) || accountPurgeService.isPurging(userId));
+    }
+
+    /**
+     * 지금 스레드에서 지운다. 호출한 트랜잭션이 있으면 그 안에서 지워진다.
+     */
+    public void purge(Long userId) {
+        purgeAll(userId);
+        accountPurgeService.deleteUser(userId);
+    }
+
+    /**
+     * 호출한 트랜잭션 안에서 지우는 중이라고 표시하고, 커밋된 뒤에 전용 스레드에서 지운다.
+     */
+    public void purgeInBackground(Long userId) {
+        accountPurgeService.markPurging(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(userId);
+                }
+            });
+        } else {
+            submit(userId);
+        }
+    }
+
+    private void submit(Long userId) {
+        if (!purging.add(userId)) {
+            return;//이미 지우는 중
+        }
+        executor.execute(() -> {
+            try {
+                purge(userId);
+                log.info("탈퇴 유저 {} 정리 완료", userId);
+            } catch (RuntimeException e) {
+                log.warn("탈퇴 유저 {} 정리 중단: {}", userId, e.getMessage());
+            } finally {
+                purging.remove(userId);
+            }
+        });
+    }
+
+    private void purgeAll(Long userId) {
+        purgeChunks(userId, accountPurgeService::purgeLikes);
+        purgeChunks(userId, accountPurgeService::purgeScraps);
+        purgeChunks(userId, accountPurgeService::purgeFollows);
+        followGraphIndex.removeUser(userId);
+    }
+
+    private void purgeChunks(Long userId, BiFunction<Long, Integer, Integer> purgeChunk) {
+        int purged;
+        do {
+            purged = purgeChunk.apply(userId, CHUNK_SIZE);
+        } while (purged == CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,104 @@
+package com.infinity.omos.service;
+
+import com.infinity.omos.domain.Activity.ActivityType;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 레코드 작성, 좋아요 같은 활동을 커밋된 뒤 (종류, 시간 구간, 대상) 별로 메모리에 더해 둔다.
+ * 쓰는 쪽은 DB를 건드리지 않고, {@link ActivityRollupScheduler}가 주기적으로 {@link #drain}해서 activity_rollup에 반영한다.
+ * 아직 반영하지 않은 키 수는 "activity.pending" gauge로 노출된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActivityCounter {
+
+    private final MeterRegistry meterRegistry;
+
+    //record는 read lock을 나눠 잡고 동시에 더한다. drain이 write lock으로 map을 바꿔 끼우므로 바꾼 뒤 옛 map에 더해지는 일이 없다
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Key, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("activity.pending", this, counter -> counter.pending.size());
+    }
+
+    /**
+     * at이 속한 시간 구간에 delta를 더한다. 트랜잭션 안이면 커밋된 뒤에 더한다.
+     */
+    public void record(ActivityType type, Object targetId, LocalDateTime at, long delta) {
+        Key key = new Key(type, at.truncatedTo(ChronoUnit.HOURS), String.valueOf(targetId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(key, delta);
+                }
+            });
+        } else {
+            add(key, delta);
+        }
+    }
+
+    //반영에 실패한 값을 다음 번에 다시 쓰도록 돌려놓는다
+    public void restore(Key key, long delta) {
+        add(key, delta);
+    }
+
+    /**
+     * 지금까지 쌓인 값을 꺼내고 비운다. 합이 0인 키는 빠진다.
+     */
+    public Map<Key, Long> drain() {
+        Map<Key, LongAdder> drained;
+        lock.writeLock().lock();
+        try {
+            drained = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Key, Long> deltas = new HashMap<>();
+        drained.forEach((key, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                deltas.put(key, delta);
+            }
+        });
+        return deltas;
+    }
+
+    private void add(Key key, long delta) {
+        lock.readLock().lock();
+        try {
+            pending.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    public static final class Key {
+        private final ActivityType type;
+        private final LocalDateTime bucket;
+        private final String targetId;
+    }
+}
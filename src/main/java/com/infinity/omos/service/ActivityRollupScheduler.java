@@ -0,0 +1,82 @@
+package com.infinity.omos.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * {@link ActivityCounter}에 모인 값을 1분마다 시간 단위 집계에 반영하고,
+ * 매일 00:05에 최근 {@link #ROLLUP_DAYS}일의 시간 단위 집계를 일 단위로 다시 합친 뒤 {@link #HOURLY_RETENTION_DAYS}일 지난 시간 단위 행을 지운다.
+ * 며칠씩 다시 합치므로 하루 이틀 거른 날이나, 늦게 반영된 값도 다음 날 맞춰진다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActivityRollupScheduler {
+
+    private static final int ROLLUP_DAYS = 3;
+    private static final int HOURLY_RETENTION_DAYS = 14;
+
+    private final ActivityCounter activityCounter;
+    private final ActivityRollupService activityRollupService;
+
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void flush() {
+        Map<ActivityCounter.Key, Long> deltas = activityCounter.drain();
+        int failed = 0;
+        for (Map.Entry<ActivityCounter.Key, Long> entry : deltas.entrySet()) {
+            if (!flush(entry.getKey(), entry.getValue())) {
+                activityCounter.restore(entry.getKey(), entry.getValue());
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            log.warn("활동 집계 반영 실패 {}건, 다음에 다시 반영합니다", failed);
+        }
+    }
+
+    private boolean flush(ActivityCounter.Key key, long delta) {
+        try {
+            activityRollupService.addHourly(key, delta);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            //다른 인스턴스가 먼저 행을 만들었다. 이번에는 update로 더해진다
+            try {
+                activityRollupService.addHourly(key, delta);
+                return true;
+            } catch (RuntimeException retry) {
+                return false;
+            }
+        } catch (RuntimeException e) {
+            log.warn("활동 집계 반영 실패: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(cron = "0 5 0 * * *")
+    public void rollupDays() {
+        try {
+            LocalDate today = LocalDate.now();
+            int rows = 0;
+            for (int days = ROLLUP_DAYS; days >= 1; days--) {
+                rows += activityRollupService.rollupDay(today.minusDays(days));
+            }
+            int deleted = activityRollupService.deleteHourlyBefore(today.minusDays(HOURLY_RETENTION_DAYS).atStartOfDay());
+            log.info("활동 일 단위 집계 {}건, 지난 시간 단위 집계 {}건 삭제", rows, deleted);
+        } catch (RuntimeException e) {
+            log.warn("활동 일 단위 집계 실패: {}", e.getMessage());
+        }
+    }
+
+    //내려가기 전에 남은 값을 반영한다
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+}
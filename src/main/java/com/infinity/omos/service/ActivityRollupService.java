@@ -0,0 +1,99 @@
+package com.infinity.omos.service;
+
+import com.infinity.omos.domain.Activity.ActivityRollup;
+import com.infinity.omos.domain.Activity.ActivityRollupRepository;
+import com.infinity.omos.domain.Activity.ActivityType;
+import com.infinity.omos.domain.Activity.RollupGranularity;
+import com.infinity.omos.domain.QueryRepository;
+import com.querydsl.core.Tuple;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * activity_rollup 읽기/쓰기. 시간 단위 행은 {@link ActivityCounter}에서 모인 값을 더해 쓰고,
+ * 일 단위 행은 하루가 지난 뒤 그날의 시간 단위 행을 합쳐 만든다.
+ */
+@Service
+@RequiredArgsConstructor
+public class ActivityRollupService {
+    private final ActivityRollupRepository activityRollupRepository;
+    private final QueryRepository queryRepository;
+
+    /**
+     * 시간 단위 행에 delta를 더한다. 행이 없으면 만든다. 동시에 같은 행을 만들면 기본키 중복이 나고, 호출하는 쪽에서 다시 부른다.
+     */
+    @Transactional
+    public void addHourly(ActivityCounter.Key key, long delta) {
+        if (activityRollupRepository.addTotal(key.getType(), RollupGranularity.HOUR, key.getBucket(), key.getTargetId(), delta) == 0) {
+            activityRollupRepository.saveAndFlush(ActivityRollup.builder()
+                    .type(key.getType())
+                    .granularity(RollupGranularity.HOUR)
+                    .bucket(key.getBucket())
+                    .targetId(key.getTargetId())
+                    .total(delta)
+                    .build());
+        }
+    }
+
+    /**
+     * day 하루의 시간 단위 행을 합쳐 일 단위 행으로 쓴다. 같은 날을 다시 돌려도 결과는 같다.
+     */
+    @Transactional
+    public int rollupDay(LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = start.plusDays(1);
+        int rows = 0;
+        for (ActivityType type : ActivityType.values()) {
+            for (Tuple row : queryRepository.sumActivityHours(type, start, end)) {
+                String targetId = row.get(0, String.class);
+                Long total = row.get(1, Long.class);
+                if (activityRollupRepository.setTotal(type, RollupGranularity.DAY, start, targetId, total) == 0) {
+                    activityRollupRepository.save(ActivityRollup.builder()
+                            .type(type)
+                            .granularity(RollupGranularity.DAY)
+                            .bucket(start)
+                            .targetId(targetId)
+                            .total(total)
+                            .build());
+                }
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Transactional
+    public int deleteHourlyBefore(LocalDateTime before) {
+        return activityRollupRepository.deleteOlderThan(RollupGranularity.HOUR, before);
+    }
+
+    /**
+     * [start, end) 동안 type 합계가 큰 target id 순으로 size개.
+     * 일 단위 행이 만들어진 날은 일 단위로, 나머지(아직 합치지 않은 최근 날, 하루가 안 되는 앞뒤)는 시간 단위로 더한다.
+     */
+    @Transactional(readOnly = true)
+    public List<String> top(ActivityType type, LocalDateTime start, LocalDateTime end, int size) {
+        LocalDateTime dayStart = start.truncatedTo(ChronoUnit.DAYS);
+        if (dayStart.isBefore(start)) {
+            dayStart = dayStart.plusDays(1);
+        }
+        LocalDateTime dayEnd = end.truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime latestDay = activityRollupRepository.findLatestBucket(type, RollupGranularity.DAY);
+        if (latestDay == null) {
+            dayEnd = dayStart;
+        } else if (latestDay.plusDays(1).isBefore(dayEnd)) {
+            dayEnd = latestDay.plusDays(1);
+        }
+        if (!dayStart.isBefore(dayEnd)) {
+            dayStart = end;
+            dayEnd = end;
+        }
+        return queryRepository.findTopActivityTargets(type, start, end, dayStart, dayEnd, size);
+    }
+}
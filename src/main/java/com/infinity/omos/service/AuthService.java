@@ -34,6 +34,7 @@ public class AuthService {
     private final FollowRepository followRepository;
     private final ScrapRepository scrapRepository;
     private final LikeRepository likeRepository;
+    private final AccountPurger accountPurger;
 
     @Transactional(readOnly = true)
     public StateDto checkDuplicatedEmail(String email) {
@@ -129,6 +130,10 @@ public class AuthService {
         SecurityContextHolder.getContext().setAuthentication(authentication);//securityContext에 저장
 
         String email = authentication.getName();
+        Long userId = queryRepository.findUserIdByUserEmail(email);
+        if (accountPurger.isPurging(userId)) {
+            throw new RuntimeException("탈퇴 처리 중인 유저입니다");
+        }
 
         TokenDto tokenDto = jwtTokenProvider.createToken(authentication);
         RefreshToken refreshToken = RefreshToken.builder()
@@ -136,7 +141,7 @@ public class AuthService {
                 .token(tokenDto.getRefreshToken())
                 .build();
 
-        tokenDto.updateId(queryRepository.findUserIdByUserEmail(email));
+        tokenDto.updateId(userId);
         refreshTokenRepository.save(refreshToken);
         return tokenDto;
     }
@@ -153,11 +158,16 @@ public class AuthService {
     @Transactional
     public StateDto signOut(Long userId){
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        followRepository.deleteAllByFromUserId(user);
-        followRepository.deleteAllByToUserId(user);
-        scrapRepository.deleteAllByUserId(user);
-        likeRepository.deleteAllByUserId(user);
-        userRepository.delete(user);
+        refreshTokenRepository.findByUserEmail(user.getEmail()).ifPresent(refreshTokenRepository::delete);
+
+        //기록이 많은 유저는 트랜잭션을 오래 잡지 않도록 나눠서 지운다
+        int history = likeRepository.countByUserId(user) + scrapRepository.countByUserId(user)
+                + followRepository.countByFromUserId(user) + followRepository.countByToUserId(user);
+        if (history <= AccountPurger.INLINE_LIMIT) {
+            accountPurger.purge(userId);
+        } else {
+            accountPurger.purgeInBackground(userId);
+        }
         return StateDto.builder().state(true).build();
     }
 
@@ -2,6 +2,7 @@ package com.infinity.omos.service;
 
 import com.infinity.omos.domain.Block.Block;
 import com.infinity.omos.domain.Block.BlockRepository;
+import com.infinity.omos.domain.Block.BlockedSetCache;
 import com.infinity.omos.domain.Posts.Posts;
 import com.infinity.omos.domain.Posts.PostsRepository;
 import com.infinity.omos.domain.QueryRepository;
@@ -26,6 +27,8 @@ public class BlockService {
     private final UserRepository userRepository;
     private final BlockRepository blockRepository;
     private final QueryRepository queryRepository;
+    private final BlockedSetCache blockedSetCache;
+    private final MyDjTimeline myDjTimeline;
 
     @Transactional
     public StateDto save(ReportType type, ReportDto reportDto, Report report) {
@@ -43,6 +46,12 @@ public class BlockService {
         }
 
         blockRepository.save(block);
+        blockedSetCache.evict(fromUser.getId());
+        if (type == ReportType.Record) {
+            myDjTimeline.removePost(fromUser.getId(), reportDto.getRecordId());
+        } else {
+            myDjTimeline.removeAuthor(fromUser.getId(), reportDto.getToUserId());
+        }
 
         block.updateReportId(report);
 
@@ -74,6 +83,8 @@ public class BlockService {
 
         Block block = blockRepository.findByFromUserIdAndToUserId(fromUser,toUser).orElseThrow(() -> new RuntimeException("해당 차단은 존재하지 않는 차단입니다"));
         blockRepository.delete(block);
+        blockedSetCache.evict(fromUser.getId());
+        myDjTimeline.invalidate(fromUser.getId());
 
         return StateDto.builder().state(true).build();
     }
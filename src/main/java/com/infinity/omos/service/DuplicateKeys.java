@@ -0,0 +1,28 @@
+package com.infinity.omos.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+/**
+ * 좋아요/스크랩/팔로우는 미리 exists로 확인하지 않고 바로 insert하므로, 실패했을 때 기본키 중복(이미 누름)인지
+ * 외래키 위반(없는 유저/레코드)인지를 DB 에러 코드로 나눈다.
+ */
+final class DuplicateKeys {
+
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+    private static final String H2_DUPLICATE_KEY = "23505";
+
+    private DuplicateKeys() {
+    }
+
+    static boolean isDuplicate(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                SQLException sqlException = (SQLException) cause;
+                return sqlException.getErrorCode() == MYSQL_DUPLICATE_ENTRY || H2_DUPLICATE_KEY.equals(sqlException.getSQLState());
+            }
+        }
+        return false;
+    }
+}
@@ -2,15 +2,18 @@ package com.infinity.omos.service;
 
 import com.infinity.omos.domain.*;
 import com.infinity.omos.domain.Follow.Follow;
+import com.infinity.omos.domain.Follow.FollowGraphIndex;
 import com.infinity.omos.domain.Follow.FollowRepository;
 import com.infinity.omos.domain.Posts.PostsRepository;
 import com.infinity.omos.domain.User.User;
 import com.infinity.omos.domain.User.UserRepository;
 import com.infinity.omos.dto.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -18,47 +21,60 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class FollowService {
+    private static final int FOLLOW_LIST_DEFAULT_SIZE = 50;
+    private static final int FOLLOW_LIST_MAX_SIZE = 200;
+
     private final FollowRepository followRepository;
     private final UserRepository userRepository;
     private final QueryRepository queryRepository;
     private final PostsRepository postsRepository;
+    private final FollowGraphIndex followGraphIndex;
+    private final MyDjTimeline myDjTimeline;
 
+    //유저를 미리 읽지 않는다. 중복 팔로우는 기본키로, 없는 유저는 외래키 제약으로 막는다
     @Transactional
     public StateDto save(Long fromUserId, Long toUserId) {
         if (fromUserId.equals(toUserId)) {
             throw new RuntimeException("자신은 팔로우할 수 없습니다");
         }
-        User fromUser = userRepository.findById(fromUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        User toUser = userRepository.findById(toUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        if (queryRepository.existsFollowByUserId(fromUser, toUser)) {
-            throw new RuntimeException("이미 팔로우가 되어있습니다");
+        try {
+            followRepository.saveAndFlush(
+                    Follow.builder()
+                            .fromUserId(userRepository.getById(fromUserId))
+                            .toUserId(userRepository.getById(toUserId))
+                            .build()
+            );
+        } catch (DataIntegrityViolationException e) {
+            if (DuplicateKeys.isDuplicate(e)) {
+                throw new RuntimeException("이미 팔로우가 되어있습니다");
+            }
+            throw new RuntimeException("해당 유저는 존재하지 않는 유저입니다");
         }
-        followRepository.save(
-                Follow.builder()
-                        .fromUserId(fromUser)
-                        .toUserId(toUser)
-                        .build()
-        );
+        followGraphIndex.follow(fromUserId, toUserId);
+        myDjTimeline.follow(fromUserId, toUserId);
         return StateDto.builder().state(true).build();
     }
 
     @Transactional
     public StateDto delete(Long fromUserId, Long toUserId) {
-        User fromUser = userRepository.findById(fromUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        User toUser = userRepository.findById(toUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        Follow follow = queryRepository.findFollowByUserId(toUser, fromUser);
-        if (follow == null) {
+        if (followRepository.deleteByFromUserIdAndToUserId(fromUserId, toUserId) == 0) {
             return StateDto.builder().state(false).build();
         }
-        followRepository.delete(follow);
+        followGraphIndex.unfollow(fromUserId, toUserId);
+        myDjTimeline.unfollow(fromUserId, toUserId);
         return StateDto.builder().state(true).build();
     }
 
 
+    //팔로우 그래프가 준비되어 있으면 팔로잉 id와 팔로우 수, 팔로우 여부는 메모리에서 읽는다
     @Transactional(readOnly = true)
     public List<DjDto> selectMyDjList(Long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
 
+        if (followGraphIndex.isReady()) {
+            List<Long> followingIds = followGraphIndex.getFollowing(userId);
+            return followingIds.isEmpty() ? Collections.emptyList() : queryRepository.findDjsByLatestPost(followingIds);
+        }
         return queryRepository.findToUserIdBYFromUserId(user)
                 .stream()
                 .map(User::toMyDjDto)
@@ -73,18 +89,19 @@ public class FollowService {
         if (optionalUser.isPresent()) {
             User existedUser = optionalUser.get();
             DjDto djDto = existedUser.toMyDjDto();
+            boolean graphReady = followGraphIndex.isReady();
 
             DjprofileDto djprofileDto = DjprofileDto.builder()
                     .count(CountDto.builder()
-                            .followerCount(followRepository.countByToUserId(existedUser))
-                            .followingCount(followRepository.countByFromUserId(existedUser))
+                            .followerCount(graphReady ? followGraphIndex.getFollowerCount(toUserId) : followRepository.countByToUserId(existedUser))
+                            .followingCount(graphReady ? followGraphIndex.getFollowingCount(toUserId) : followRepository.countByFromUserId(existedUser))
                             .recordsCount(postsRepository.countByUserId(existedUser))
                             .build())
                     .profile(djDto)
                     .build();
 
             if (!toUserId.equals(fromUserId)) {
-                djprofileDto.setIsFollowed(queryRepository.existsFollowByUserId(
+                djprofileDto.setIsFollowed(graphReady ? followGraphIndex.isFollowing(fromUserId, toUserId) : queryRepository.existsFollowByUserId(
                         userRepository.getById(fromUserId), existedUser));
             }
             return djprofileDto;
@@ -95,44 +112,44 @@ public class FollowService {
 
     }
 
-    //TODO 현재는 exist쿼리를 따로 또 하나하나 부르고 있지만, 추후에 하나의 쿼리로 다 가져오는걸 생각해볼것
+    /**
+     * @param fromUserId 목록을 보는 유저. 없거나 프로필 주인 자신이면 모든 유저의 isFollowed가 true이다
+     * @param toUserId   프로필 주인
+     * @param userId     이전 페이지 마지막 유저의 id. 첫 페이지면 null
+     */
     @Transactional(readOnly = true)
-    public List<UserResponseDto> selectFollower(Long fromUserId, Long toUserId) {
-        User toUser = userRepository.findById(toUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-
-        User fromUser;
-        if (fromUserId != null) {
-            fromUser = userRepository.findById(fromUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        } else {
-            fromUser = toUser;
+    public List<UserResponseDto> selectFollower(Long fromUserId, Long toUserId, Long userId, Integer size) {
+        if (!userRepository.existsById(toUserId)) {
+            throw new RuntimeException("해당 유저는 존재하지 않는 유저입니다");
         }
-
-        return queryRepository.selectFollower(toUser).stream().peek(it ->
-                it.updateIsFollowed(ifNullUserId(fromUser, it, toUser))).collect(Collectors.toList());
+        return ownList(fromUserId, toUserId, queryRepository.selectFollower(toUserId, viewerId(fromUserId, toUserId), userId, pageSize(size)));
     }
 
-    //TODO 현재는 exist쿼리를 따로 또 하나하나 부르고 있지만, 추후에 하나의 쿼리로 다 가져오는걸 생각해볼것
     @Transactional(readOnly = true)
-    public List<UserResponseDto> selectFollowing(Long fromUserId, Long toUserId) {
-        User toUser = userRepository.findById(toUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-
-        User fromUser;
-        if (fromUserId != null) {
-            fromUser = userRepository.findById(fromUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        } else {
-            fromUser = toUser;
+    public List<UserResponseDto> selectFollowing(Long fromUserId, Long toUserId, Long userId, Integer size) {
+        if (!userRepository.existsById(toUserId)) {
+            throw new RuntimeException("해당 유저는 존재하지 않는 유저입니다");
         }
+        return ownList(fromUserId, toUserId, queryRepository.selectFollowing(toUserId, viewerId(fromUserId, toUserId), userId, pageSize(size)));
+    }
 
-        return queryRepository.selectFollowing(toUser).stream().peek(it ->
-                it.updateIsFollowed(ifNullUserId(fromUser, it, toUser))).collect(Collectors.toList());
+    private static Long viewerId(Long fromUserId, Long toUserId) {
+        return fromUserId != null ? fromUserId : toUserId;
     }
 
-    private Boolean ifNullUserId(User fromUser, UserResponseDto toUser, User reference) {
-        if (fromUser == reference) {
-            return true;
-        } else {
-            return queryRepository.existsFollowByUserId(fromUser, userRepository.getById(toUser.getUserId()));
+    //자기 목록을 볼 때는 예전처럼 모두 isFollowed true
+    private static List<UserResponseDto> ownList(Long fromUserId, Long toUserId, List<UserResponseDto> users) {
+        if (fromUserId == null || fromUserId.equals(toUserId)) {
+            users.forEach(it -> it.updateIsFollowed(true));
+        }
+        return users;
+    }
+
+    private static int pageSize(Integer size) {
+        if (size == null) {
+            return FOLLOW_LIST_DEFAULT_SIZE;
         }
+        return Math.max(1, Math.min(size, FOLLOW_LIST_MAX_SIZE));
     }
 
 
@@ -1,44 +1,54 @@
 package com.infinity.omos.service;
 
-import com.infinity.omos.domain.*;
+import com.infinity.omos.domain.Activity.ActivityType;
 import com.infinity.omos.domain.Like.Like;
 import com.infinity.omos.domain.Like.LikeRepository;
-import com.infinity.omos.domain.Posts.Posts;
 import com.infinity.omos.domain.Posts.PostsRepository;
-import com.infinity.omos.domain.User.User;
 import com.infinity.omos.domain.User.UserRepository;
 import com.infinity.omos.dto.StateDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
 @Service
 @RequiredArgsConstructor
 public class LikeService {
     private final LikeRepository likeRepository;
     private final PostsRepository postsRepository;
     private final UserRepository userRepository;
-    private final QueryRepository queryRepository;
+    private final ActivityCounter activityCounter;
 
+    //레코드와 유저를 미리 읽지 않는다. 좋아요 수 update가 레코드 존재 확인을 겸하고, 중복은 기본키로 막는다
     @Transactional
     public StateDto save(Long postsId, Long userId){
-        Posts posts = postsRepository.findById(postsId).orElseThrow(() -> new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다"));
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        if(queryRepository.existsLikeByUserIdPostId(user,posts)){
-            throw new RuntimeException("이미 좋아요가 눌러져있습니다");
+        if (postsRepository.increaseLikeCount(postsId) == 0) {
+            throw new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다");
         }
-
-
-        likeRepository.save(Like.builder().postId(posts).userId(user).build());
+        try {
+            likeRepository.saveAndFlush(Like.builder()
+                    .postId(postsRepository.getById(postsId))
+                    .userId(userRepository.getById(userId))
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            if (DuplicateKeys.isDuplicate(e)) {
+                throw new RuntimeException("이미 좋아요가 눌러져있습니다");
+            }
+            throw new RuntimeException("해당 유저는 존재하지 않는 유저입니다");
+        }
+        activityCounter.record(ActivityType.POST_LIKES, postsId, LocalDateTime.now(), 1);
         return StateDto.builder().state(true).build();
     }
 
     @Transactional
     public StateDto delete(Long postsId, Long userId){
-        Posts posts = postsRepository.findById(postsId).orElseThrow(() -> new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다"));
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-
-        likeRepository.delete(queryRepository.findLikeByUserIdPostId(user,posts));
+        if (likeRepository.deleteByUserIdAndPostId(userId, postsId) == 0) {
+            throw new RuntimeException("해당 레코드에 좋아요가 눌러져있지 않습니다");
+        }
+        postsRepository.decreaseLikeCount(postsId);
+        activityCounter.record(ActivityType.POST_LIKES, postsId, LocalDateTime.now(), -1);
         return StateDto.builder().state(true).build();
     }
 }
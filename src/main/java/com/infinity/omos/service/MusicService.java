@@ -0,0 +1,153 @@
+package com.infinity.omos.service;
+
+import com.infinity.omos.api.SpotifyAllSearchApi;
+import com.infinity.omos.api.SpotifyApiException;
+import com.infinity.omos.api.SpotifyApiAuthorization;
+import com.infinity.omos.api.SpotifyTrackCache;
+import com.infinity.omos.domain.Music.Music;
+import com.infinity.omos.domain.Music.MusicRepository;
+import com.infinity.omos.dto.MusicDto;
+import com.infinity.omos.dto.PostsFeedDto;
+import com.infinity.omos.dto.TrackDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MusicService {
+
+    private static final long PAGE_DEADLINE_MILLIS = 3_000;
+
+    private final SpotifyApiAuthorization spotifyApiAuthorization;
+    private final MusicRepository musicRepository;
+
+    public MusicDto getMusicDto(String musicId) {
+        return musicRepository.findById(musicId)
+                .map(this::getMusicDto)
+                .orElseGet(() -> requestMusicDto(musicId));
+    }
+
+    public MusicDto getMusicDto(Music music) {
+        if (music.isSynced()) {
+            return music.toMusicDto();
+        }
+        return requestMusicDto(music.getId());
+    }
+
+    /**
+     * spotify 요청이 실패해도(circuit open, 429 등) 화면은 그려야 하므로 캐시에 남은 오래된 값이나 musicId만 채운 값을 쓴다.
+     */
+    private MusicDto requestMusicDto(String musicId) {
+        try {
+            return getMusicDto(SpotifyAllSearchApi.getTrackApi(spotifyApiAuthorization.currentToken(), musicId));
+        } catch (SpotifyApiException e) {
+            log.warn("노래정보 조회 실패 musicId={}: {}", musicId, e.getMessage());
+            TrackDto stale = SpotifyTrackCache.getStale(musicId);
+            return stale == null ? MusicDto.builder().musicId(musicId).build() : getMusicDto(stale);
+        }
+    }
+
+    /**
+     * 한 페이지 레코드들의 노래 정보를 가져온다.
+     * 저장된 노래정보가 있으면 DB 값을 쓰고, 아직 동기화되지 않은 노래만 spotify에 한번에 요청한다.
+     * 반환된 Map에는 모든 musicId가 들어있고, spotify에 없는 노래는 musicId만 채워진다.
+     * spotify 요청이 실패하거나 늦으면 캐시에 남은 오래된 값을 쓰고, 그것도 없으면 musicId만 채운다.
+     */
+    public Map<String, MusicDto> getMusicDtos(List<PostsFeedDto> postsList) {
+        Map<String, MusicDto> musicDtos = new HashMap<>();
+        Set<String> unsyncedIds = new LinkedHashSet<>();
+        for (PostsFeedDto post : postsList) {
+            if (post.isMusicSynced()) {
+                musicDtos.put(post.getMusicId(), post.toMusicDto());
+            } else {
+                unsyncedIds.add(post.getMusicId());
+            }
+        }
+
+        if (unsyncedIds.isEmpty()) {
+            return musicDtos;
+        }
+
+        Map<String, TrackDto> trackDtos = requestTracks(new ArrayList<>(unsyncedIds));
+        for (String musicId : unsyncedIds) {
+            TrackDto trackDto = trackDtos.get(musicId);
+            musicDtos.put(musicId, trackDto == null ? MusicDto.builder().musicId(musicId).build() : getMusicDto(trackDto));
+        }
+        return musicDtos;
+    }
+
+    /**
+     * 톰캣 스레드에서 바로 부르고, 페이지가 커서 요청이 여러 번으로 나뉘어도 전체를 {@link #PAGE_DEADLINE_MILLIS}까지만 기다린다.
+     * 실패했거나 시간 안에 못 받으면 캐시에 남은 오래된 값을 쓴다.
+     */
+    private Map<String, TrackDto> requestTracks(List<String> musicIds) {
+        try {
+            return SpotifyAllSearchApi.getTracks(spotifyApiAuthorization.currentToken(), musicIds, PAGE_DEADLINE_MILLIS);
+        } catch (SpotifyApiException e) {
+            log.warn("노래정보 {}건 조회 실패 status={}, 캐시 값으로 대신합니다: {}", musicIds.size(), e.getStatusCode(), e.getMessage());
+            return SpotifyTrackCache.getAllStale(musicIds);
+        }
+    }
+
+    /**
+     * 레코드 저장 시 노래 행만 만든다. 레코드 저장 트랜잭션이 DB 연결을 잡은 채로 spotify를 기다리지 않도록
+     * 노래정보는 채우지 않고 MusicSyncScheduler에 맡긴다. 그 전까지 목록에서는 {@link #getMusicDtos}가 spotify에서 가져온다.
+     */
+    @Transactional
+    public Music saveMusic(String musicId) {
+        return musicRepository.findById(musicId)
+                .orElseGet(() -> musicRepository.save(Music.builder().id(musicId).build()));
+    }
+
+    /**
+     * 한번도 동기화되지 않았거나 staleBefore 이전에 동기화된 노래 id를 최대 size개.
+     * spotify 요청은 트랜잭션 밖에서 {@link #requestTracks}로 하고, 결과는 {@link #applyTracks}로 따로 저장한다. (MusicSyncScheduler)
+     */
+    @Transactional(readOnly = true)
+    public List<String> findStaleMusicIds(LocalDateTime staleBefore, int size) {
+        return musicRepository.findBySyncedDateIsNullOrSyncedDateBefore(staleBefore, PageRequest.of(0, size)).stream()
+                .map(Music::getId)
+                .collect(Collectors.toList());
+    }
+
+    //DB 연결을 잡지 않은 채로 부른다
+    public Map<String, TrackDto> requestTracksForSync(List<String> musicIds) {
+        return SpotifyAllSearchApi.getTracks(spotifyApiAuthorization.currentToken(), musicIds);
+    }
+
+    @Transactional
+    public void applyTracks(List<String> musicIds, Map<String, TrackDto> trackDtos) {
+        for (Music music : musicRepository.findAllById(musicIds)) {
+            TrackDto trackDto = trackDtos.get(music.getId());
+            if (trackDto == null) {
+                //spotify에 없는 노래. 확인한 시각만 남겨 다음 주기에 다시 확인하고, 한번도 받아오지 못한 노래는 계속 동기화되지 않은 노래로 본다
+                music.updateSyncedDate();
+            } else {
+                music.updateTrack(trackDto);
+            }
+        }
+    }
+
+    static MusicDto getMusicDto(TrackDto trackDto) {
+        return MusicDto.builder()
+                .musicId(trackDto.getMusicId())
+                .musicTitle(trackDto.getMusicTitle())
+                .albumImageUrl(trackDto.getAlbumImageUrl())
+                .artists(trackDto.getArtists())
+                .albumTitle(trackDto.getAlbumTitle())
+                .build();
+    }
+}
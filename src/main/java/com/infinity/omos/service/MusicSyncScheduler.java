@@ -0,0 +1,49 @@
+package com.infinity.omos.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Music에 저장된 spotify 노래정보를 주기적으로 다시 동기화한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MusicSyncScheduler {
+
+    private static final int BATCH_SIZE = 50;
+    private static final int MAX_BATCHES_PER_RUN = 20;
+    private static final long STALE_DAYS = 7;
+
+    private final MusicService musicService;
+
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 60 * 1000)
+    public void syncStaleMusic() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusDays(STALE_DAYS);
+        int synced = 0;
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+                List<String> musicIds = musicService.findStaleMusicIds(staleBefore, BATCH_SIZE);
+                if (musicIds.isEmpty()) {
+                    break;
+                }
+                //spotify 요청(rate limit 대기, timeout 포함) 동안 DB 연결과 행 잠금을 잡지 않도록 읽기, 요청, 저장을 나눈다
+                musicService.applyTracks(musicIds, musicService.requestTracksForSync(musicIds));
+                synced += musicIds.size();
+                if (musicIds.size() < BATCH_SIZE) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("노래정보 동기화 중단: {}", e.getMessage());
+        }
+        if (synced > 0) {
+            log.info("노래정보 {}건 동기화", synced);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.infinity.omos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.infinity.omos.domain.Follow.FollowGraphIndex;
+import com.infinity.omos.domain.QueryRepository;
+import com.querydsl.core.Tuple;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * 유저별 My DJ 타임라인. 팔로우하는 DJ들의 최신 공개 레코드 id를 {@link #CAPACITY}개까지 메모리에 들고 있다.
+ * 처음 읽을 때 DB에서 채우고, 새 레코드는 커밋된 뒤 전용 스레드에서 팔로워들의 타임라인에 넣는다(fan-out).
+ * 팔로워가 {@link #CELEBRITY_FOLLOWERS}명 이상인 DJ는 넣지 않고 읽을 때 따로 가져와 합친다.
+ * 팔로우하면 그 DJ의 레코드를 채워 넣고, 언팔로우/차단하면 뺀다. 비공개로 바뀌었거나 지워진 레코드는 팔로워들의 타임라인에서 뺀다.
+ * DB에서 채우는 동안에는 캐시를 잡지 않고, 그 사이에 들어온 변경은 모아 두었다가 다 채운 타임라인을 넣을 때 같이 적용한다.
+ * 타임라인을 바꾸는 작업은 모두 전용 스레드 하나에서 순서대로 하므로, 팔로우 직후 언팔로우해도 채우기가 빼기보다 늦게 끝나지 않는다.
+ * 팔로워가 줄어 {@link #CELEBRITY_FOLLOWERS}명 아래로 내려간 DJ는 그동안 넣지 않은 레코드가 있으므로 팔로워들의 타임라인을 지우고 다시 채운다.
+ * 메트릭은 "mydj.timeline" 캐시로 노출된다.
+ * 팔로우 그래프({@link FollowGraphIndex})가 준비되기 전에는 쓰지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MyDjTimeline {
+
+    private static final int CAPACITY = 500;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int CELEBRITY_FOLLOWERS = 5_000;
+    private static final long MAXIMUM_SIZE = 100_000;
+    private static final Duration EXPIRE_AFTER_ACCESS = Duration.ofHours(1);
+
+    private final QueryRepository queryRepository;
+    private final FollowGraphIndex followGraphIndex;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mydj-fan-out");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //팔로워가 CELEBRITY_FOLLOWERS명 이상인 것을 본 DJ. 내려간 것을 알아채는 데 쓴다
+    private final Set<Long> celebrities = ConcurrentHashMap.newKeySet();
+
+    //DB에서 채우는 중인 유저와 그 사이에 들어온 변경
+    private final Map<Long, Queue<Consumer<Timeline>>> pendingChanges = new ConcurrentHashMap<>();
+
+    private Cache<Long, Timeline> timelines;
+
+    @PostConstruct
+    public void init() {
+        timelines = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, timelines, "mydj.timeline");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public boolean isAvailable() {
+        return followGraphIndex.isReady();
+    }
+
+    /**
+     * postId보다 오래된 레코드 id를 최신순으로 pageSize개까지.
+     * 타임라인에 들고 있는 것보다 오래된 페이지면 null이고, 호출하는 쪽은 DB에서 읽는다.
+     */
+    public List<Long> page(Long userId, Long postId, int pageSize) {
+        List<Long> following = followGraphIndex.getFollowing(userId);
+        if (following.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> celebrityIds = new ArrayList<>();
+        List<Long> others = new ArrayList<>();
+        for (Long toUserId : following) {
+            (isCelebrity(toUserId) ? celebrityIds : others).add(toUserId);
+        }
+
+        Timeline timeline = timelines.getIfPresent(userId);
+        if (timeline == null) {
+            timeline = load(userId, others);
+        }
+        List<Long> postIds = timeline.page(postId == null ? Long.MAX_VALUE : postId, pageSize);
+        if (postIds == null || celebrityIds.isEmpty()) {
+            return postIds;
+        }
+
+        //팔로워가 많은 DJ의 레코드는 읽을 때 합친다
+        TreeSet<Long> merged = new TreeSet<>(Collections.reverseOrder());
+        merged.addAll(postIds);
+        for (Tuple row : queryRepository.findPublicPostIdsByUserIds(celebrityIds, postId, pageSize)) {
+            merged.add(row.get(0, Long.class));
+        }
+        List<Long> page = new ArrayList<>(pageSize);
+        for (Long id : merged) {
+            if (page.size() == pageSize) {
+                break;
+            }
+            page.add(id);
+        }
+        return page;
+    }
+
+    /**
+     * DB 조회는 캐시 밖에서 하고, 다 채운 뒤에 그 사이 들어온 변경을 적용해서 넣는다.
+     * 다른 요청이 먼저 넣었으면 그 타임라인을 쓴다.
+     */
+    private Timeline load(Long userId, List<Long> userIds) {
+        pendingChanges.putIfAbsent(userId, new ConcurrentLinkedQueue<>());
+        Timeline loaded = new Timeline();
+        if (!userIds.isEmpty()) {
+            List<Tuple> rows;
+            try {
+                rows = queryRepository.findPublicPostIdsByUserIds(userIds, null, CAPACITY);
+            } catch (RuntimeException e) {
+                pendingChanges.remove(userId);
+                throw e;
+            }
+            loaded.addAll(rows);
+            loaded.complete = rows.size() < CAPACITY;
+        }
+        return timelines.asMap().compute(userId, (key, existing) -> {
+            Queue<Consumer<Timeline>> changes = pendingChanges.remove(userId);
+            if (existing != null) {
+                return existing;
+            }
+            if (changes != null) {
+                changes.forEach(change -> change.accept(loaded));
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * 새 공개 레코드를 작성자의 팔로워 중 타임라인이 메모리에 있는 유저에게만 넣는다.
+     */
+    public void fanOut(Long authorId, Long postId) {
+        afterCommit(() -> executor.execute(() -> {
+            if (!isAvailable()) {
+                timelines.invalidateAll();
+                return;
+            }
+            if (isCelebrity(authorId)) {
+                return;
+            }
+            for (Long followerId : followGraphIndex.getFollowers(authorId)) {
+                update(followerId, timeline -> timeline.add(postId, authorId));
+            }
+        }));
+    }
+
+    //레코드가 비공개로 바뀌었거나 지워졌을 때
+    public void removePostFromFollowers(Long authorId, Long postId) {
+        afterCommit(() -> executor.execute(() -> {
+            if (!isAvailable()) {
+                timelines.invalidateAll();
+                return;
+            }
+            for (Long followerId : followGraphIndex.getFollowers(authorId)) {
+                update(followerId, timeline -> timeline.removePost(postId));
+            }
+        }));
+    }
+
+    public void follow(Long fromUserId, Long toUserId) {
+        afterCommit(() -> executor.execute(() -> {
+            if (isCelebrity(toUserId)) {
+                return;
+            }
+            try {
+                List<Tuple> rows = queryRepository.findPublicPostIdsByUserIds(List.of(toUserId), null, CAPACITY);
+                //조회하는 사이에 언팔로우했으면 넣지 않는다
+                update(fromUserId, timeline -> {
+                    if (followGraphIndex.isFollowing(fromUserId, toUserId)) {
+                        timeline.addAll(rows);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("My DJ 타임라인 채우기 실패: {}", e.getMessage());
+                timelines.invalidate(fromUserId);
+            }
+        }));
+    }
+
+    public void unfollow(Long fromUserId, Long toUserId) {
+        removeAuthor(fromUserId, toUserId);
+        //팔로워가 기준 아래로 내려갔는지 확인
+        afterCommit(() -> executor.execute(() -> {
+            isCelebrity(toUserId);
+        }));
+    }
+
+    //언팔로우, 유저 차단
+    public void removeAuthor(Long userId, Long authorId) {
+        afterCommit(() -> executor.execute(() -> update(userId, timeline -> timeline.removeAuthor(authorId))));
+    }
+
+    //레코드 차단
+    public void removePost(Long userId, Long postId) {
+        afterCommit(() -> executor.execute(() -> update(userId, timeline -> timeline.removePost(postId))));
+    }
+
+    //메모리에 있는 타임라인을 바꾼다. DB에서 채우는 중이면 모아 두었다가 다 채운 뒤에 적용한다
+    private void update(Long userId, Consumer<Timeline> change) {
+        timelines.asMap().compute(userId, (key, timeline) -> {
+            if (timeline != null) {
+                change.accept(timeline);
+            } else {
+                Queue<Consumer<Timeline>> changes = pendingChanges.get(userId);
+                if (changes != null) {
+                    changes.add(change);
+                }
+            }
+            return timeline;
+        });
+    }
+
+    //차단 해제처럼 빠졌던 레코드가 돌아와야 할 때. 다음에 읽을 때 다시 채운다
+    public void invalidate(Long userId) {
+        afterCommit(() -> timelines.invalidate(userId));
+    }
+
+    /**
+     * 기준 아래로 내려간 것을 처음 보면, 그 DJ를 팔로우하는 유저들의 타임라인에는 그동안 넣지 않은 레코드가 빠져 있으므로 지운다.
+     * (다음에 읽을 때 DB에서 다시 채운다) 올라갈 때는 읽을 때 따로 합치고 중복은 걸러지므로 지우지 않는다.
+     */
+    private boolean isCelebrity(Long userId) {
+        if (followGraphIndex.getFollowerCount(userId) >= CELEBRITY_FOLLOWERS) {
+            celebrities.add(userId);
+            return true;
+        }
+        if (celebrities.remove(userId)) {
+            timelines.invalidateAll(followGraphIndex.getFollowers(userId));
+        }
+        return false;
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * 레코드 id 최신순으로 정렬된 (레코드 id, 작성자 id) 배열. CAPACITY를 넘으면 가장 오래된 것부터 버린다.
+     * 대부분의 유저는 레코드가 많지 않으므로 배열은 INITIAL_CAPACITY에서 시작해 CAPACITY까지 두 배씩 늘린다.
+     */
+    private static final class Timeline {
+        private long[] postIds = new long[INITIAL_CAPACITY];
+        private long[] authorIds = new long[INITIAL_CAPACITY];
+        private int size;
+        //DB에 있는 레코드를 전부 들고 있는지. 한번이라도 버렸으면 false
+        private boolean complete = true;
+
+        private synchronized List<Long> page(long beforePostId, int pageSize) {
+            List<Long> page = new ArrayList<>(pageSize);
+            int from = indexOf(beforePostId);
+            if (from < size && postIds[from] == beforePostId) {
+                from++;
+            }
+            for (int i = from; i < size && page.size() < pageSize; i++) {
+                page.add(postIds[i]);
+            }
+            if (page.size() < pageSize && !complete) {
+                return null;
+            }
+            return page;
+        }
+
+        private synchronized void add(long postId, long authorId) {
+            int index = indexOf(postId);
+            if (index < size && postIds[index] == postId) {
+                return;
+            }
+            if (size == CAPACITY) {
+                complete = false;
+                if (index == CAPACITY) {
+                    return;//들고 있는 것보다 오래된 레코드
+                }
+                size--;
+            } else if (size == postIds.length) {
+                int length = Math.min(postIds.length * 2, CAPACITY);
+                postIds = Arrays.copyOf(postIds, length);
+                authorIds = Arrays.copyOf(authorIds, length);
+            }
+            System.arraycopy(postIds, index, postIds, index + 1, size - index);
+            System.arraycopy(authorIds, index, authorIds, index + 1, size - index);
+            postIds[index] = postId;
+            authorIds[index] = authorId;
+            size++;
+        }
+
+        private synchronized void addAll(List<Tuple> rows) {
+            for (Tuple row : rows) {
+                add(row.get(0, Long.class), row.get(1, Long.class));
+            }
+        }
+
+        private synchronized void removeAuthor(long authorId) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (authorIds[i] != authorId) {
+                    postIds[kept] = postIds[i];
+                    authorIds[kept] = authorIds[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        private synchronized void removePost(long postId) {
+            int index = indexOf(postId);
+            if (index < size && postIds[index] == postId) {
+                System.arraycopy(postIds, index + 1, postIds, index, size - index - 1);
+                System.arraycopy(authorIds, index + 1, authorIds, index, size - index - 1);
+                size--;
+            }
+        }
+
+        //postId가 들어갈 위치. (내림차순 이분 탐색)
+        private int indexOf(long postId) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (postIds[mid] > postId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
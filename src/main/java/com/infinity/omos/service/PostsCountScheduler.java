@@ -0,0 +1,35 @@
+package com.infinity.omos.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Posts의 like_count, scrap_count가 실제 좋아요/스크랩 수와 어긋난 것을 주기적으로 고친다.
+ * (유저 탈퇴로 좋아요가 한번에 지워진 경우, 컬럼 추가 전 레코드 등)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostsCountScheduler {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final PostsService postsService;
+
+    @Scheduled(fixedDelay = 6 * 60 * 60 * 1000, initialDelay = 2 * 60 * 1000)
+    public void reconcileCounts() {
+        int batches = 0;
+        try {
+            Long afterId = null;
+            do {
+                afterId = postsService.reconcileCounts(afterId, BATCH_SIZE);
+                batches++;
+            } while (afterId != null);
+        } catch (RuntimeException e) {
+            log.warn("좋아요/스크랩 수 보정 중단: {}", e.getMessage());
+        }
+        log.info("좋아요/스크랩 수 보정 {}회 완료", batches);
+    }
+}
@@ -1,46 +1,65 @@
 package com.infinity.omos.service;
 
-import com.infinity.omos.api.SpotifyAllSearchApi;
-import com.infinity.omos.api.SpotifyApiAuthorization;
 import com.infinity.omos.domain.*;
+import com.infinity.omos.domain.Activity.ActivityType;
 import com.infinity.omos.domain.Like.LikeRepository;
 import com.infinity.omos.domain.Music.Music;
-import com.infinity.omos.domain.Music.MusicRepository;
 import com.infinity.omos.domain.Posts.Posts;
 import com.infinity.omos.domain.Posts.PostsRepository;
 import com.infinity.omos.domain.Scrap.ScrapRepository;
 import com.infinity.omos.domain.User.User;
 import com.infinity.omos.domain.User.UserRepository;
 import com.infinity.omos.dto.*;
+import com.querydsl.core.Tuple;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import se.michaelthelin.spotify.SpotifyApi;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 
 @Service
 @RequiredArgsConstructor
 public class PostsService {
 
+    private static final int MY_POST_DEFAULT_SIZE = 20;
+    private static final int MY_POST_MAX_SIZE = 100;
+    //한 페이지 노래정보를 정해진 시간 안에 가져올 수 있도록 목록 size는 이만큼까지만 받는다
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PostsRepository postsRepository;
     private final QueryRepository queryRepository;
     private final LikeRepository likeRepository;
     private final ScrapRepository scrapRepository;
-    private final SpotifyApiAuthorization spotifyApiAuthorization;
+    private final MusicService musicService;
     private final UserRepository userRepository;
-    private final MusicRepository musicRepository;
+    private final RandomFeedPool randomFeedPool;
+    private final MyDjTimeline myDjTimeline;
+    private final ActivityCounter activityCounter;
 
 
     @Transactional(readOnly = true)
     public HashMap<Category, List<PostsResponseDto>> selectRecordsMatchingAllCategory(Long userId) {
         HashMap<Category, List<PostsResponseDto>> postsMatchingCategoryDtos = new HashMap<>();
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
+
+        //노래정보는 모든 카테고리 레코드를 모아서 한번에 조회
+        Map<Category, List<PostsFeedDto>> postsByCategory = new HashMap<>();
+        List<PostsFeedDto> allPosts = new ArrayList<>();
+        for (Category category : Category.values()) {
+            List<PostsFeedDto> posts = queryRepository.findPostsByCategory(category, 5, user);
+            postsByCategory.put(category, posts);
+            allPosts.addAll(posts);
+        }
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(allPosts);
+
         for (Category category : Category.values()) {
-            postsMatchingCategoryDtos.put(category, selectRecordsMatchingCategory(category, 5,user));
+            postsMatchingCategoryDtos.put(category, postsToResponseDtos(postsByCategory.get(category), musicDtos));
         }
 
         return postsMatchingCategoryDtos;
@@ -48,28 +67,21 @@ public class PostsService {
 
     @Transactional(readOnly = true)
     public List<PostsResponseDto> selectRecordsMatchingCategory(Category category, int size,User user) {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
+        List<PostsFeedDto> posts = queryRepository.findPostsByCategory(category, size,user);
+        return postsToResponseDtos(posts, musicService.getMusicDtos(posts));
+    }
 
-        List<Posts> posts = queryRepository.findPostsByCategory(category, size,user);
+    private List<PostsResponseDto> postsToResponseDtos(List<PostsFeedDto> posts, Map<String, MusicDto> musicDtos) {
         List<PostsResponseDto> postsResponseDtos = new ArrayList<>();
-        for (Posts post : posts) {
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
-
+        for (PostsFeedDto post : posts) {
             postsResponseDtos.add(
                     PostsResponseDto.builder()
-                            .music(MusicDto.builder()
-                                    .musicId(trackDto.getMusicId())
-                                    .musicTitle(trackDto.getMusicTitle())
-                                    .albumImageUrl(trackDto.getAlbumImageUrl())
-                                    .artists(trackDto.getArtists())
-                                    .albumTitle(trackDto.getAlbumTitle())
-                                    .build()
-                            )
-                            .recordId(post.getId())
+                            .music(musicDtos.get(post.getMusicId()))
+                            .recordId(post.getPostId())
                             .recordTitle(post.getTitle())
                             .recordImageUrl(post.getImageUrl())
-                            .nickname(post.getUserId().getNickname())
-                            .userId(post.getUserId().getId())
+                            .nickname(post.getNickname())
+                            .userId(post.getUserId())
                             .build()
             );
 
@@ -79,33 +91,35 @@ public class PostsService {
     }
 
     @Transactional(readOnly = true)
-    public List<PostsDetailResponseDto> selectRecordsByCategory(Category category, SortType sortType, Long postId, int pageSize, Long userId) {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
+    public List<PostsDetailResponseDto> selectRecordsByCategory(Category category, SortType sortType, Long postId, String cursor, int pageSize, Long userId) {
+        pageSize = capPageSize(pageSize);
         User user = userRepository.getById(userId);
         List<PostsDetailResponseDto> postsDetailResponseDtos = new ArrayList<>();
-        List<Posts> posts;
+        List<PostsFeedDto> posts;
+        RandomFeedPool.Pool pool = null;
+        Map<Long, Integer> positions = new HashMap<>();
         switch (sortType) {
             case date:
-                posts = queryRepository.findAllByCategoryOrderByCreatedDate(category, postId, pageSize,user);
+                posts = queryRepository.findAllByCategoryOrderByCreatedDate(category, toCursor(sortType, postId, cursor), pageSize,user);
                 break;
             case like:
-                //Pageable pageable = PageRequest.of(page,pageSize);
-                posts = queryRepository.findAllByCategoryOrderByLike(category, postId, pageSize,user);
+                posts = queryRepository.findAllByCategoryOrderByLike(category, toCursor(sortType, postId, cursor), pageSize,user);
                 break;
             case random:
-                posts = queryRepository.findAllByCategoryOrderByRandom(category, postId, pageSize,user);
+                pool = randomPool("category:" + category.name(), cursor, () -> queryRepository.findPublicPostIdsByCategory(category));
+                posts = findRandomPage(pool, postId, cursor, pageSize, user, positions);
                 break;
             default:
                 return postsDetailResponseDtos;
 
         }
 
-        for (Posts post : posts) {
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
-
-            postsDetailResponseDtos.add(
-                    getPostsDetailResponseDto(post, user, trackDto)
-            );
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(posts);
+        Map<Long, PostsStatDto> postsStats = findPostsStats(posts, user);
+        for (PostsFeedDto post : posts) {
+            PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(post, musicDtos.get(post.getMusicId()), postsStats.get(post.getPostId()));
+            postsDetailResponseDto.setCursor(nextCursor(sortType, post, pool, positions));
+            postsDetailResponseDtos.add(postsDetailResponseDto);
         }
         return postsDetailResponseDtos;
     }
@@ -114,15 +128,87 @@ public class PostsService {
         date, random, like
     }
 
-    @Transactional
-    public StateDto save(PostsRequestDto requestDto) {
-        if (!musicRepository.existsById(requestDto.getMusicId())) {
-            musicRepository.save(Music.builder().id(requestDto.getMusicId()).build());
+    /**
+     * cursor가 있으면 cursor를, 없으면 예전 방식의 postId로 cursor를 만든다. 첫 페이지면 null
+     */
+    private PostsCursor toCursor(SortType sortType, Long postId, String cursor) {
+        if (cursor != null && !cursor.isEmpty()) {
+            return PostsCursor.decode(cursor);
+        }
+        if (postId == null) {
+            return null;
+        }
+        if (sortType == SortType.like) {
+            Integer likeCount = queryRepository.findLikeCount(postId);
+            return likeCount == null ? null : new PostsCursor(likeCount, postId);
+        }
+        return new PostsCursor(postId, postId);
+    }
+
+    private String nextCursor(SortType sortType, PostsFeedDto post, RandomFeedPool.Pool pool, Map<Long, Integer> positions) {
+        switch (sortType) {
+            case date:
+                return new PostsCursor(post.getPostId(), post.getPostId()).encode();
+            case like:
+                return new PostsCursor(post.getLikeCount(), post.getPostId()).encode();
+            case random:
+                return new PostsCursor(pool.getSeed(), post.getPostId(), positions.get(post.getPostId())).encode();
+            default:
+                return null;
         }
+    }
+
+    /**
+     * 랜덤순 cursor의 정렬값은 pool seed 이다. 첫 페이지면 지금 seed의 pool
+     */
+    private RandomFeedPool.Pool randomPool(String feed, String cursor, Supplier<List<Long>> postIdsLoader) {
+        Long seed = cursor != null && !cursor.isEmpty() ? PostsCursor.decode(cursor).getSortKey() : null;
+        return randomFeedPool.get(feed, seed, postIdsLoader);
+    }
 
+    /**
+     * pool에서 cursor 다음 위치부터 꺼내 레코드를 읽는다. 비공개로 바뀌었거나 차단한 레코드는 건너뛰고 pageSize만큼 채운다.
+     * 각 레코드의 pool 안 위치는 positions에 담아 다음 cursor에 넣는다.
+     */
+    private List<PostsFeedDto> findRandomPage(RandomFeedPool.Pool pool, Long postId, String cursor, int pageSize, User user, Map<Long, Integer> positions) {
+        int index;
+        if (cursor != null && !cursor.isEmpty()) {
+            PostsCursor postsCursor = PostsCursor.decode(cursor);
+            index = pool.indexAfter(postsCursor.getPostId(), postsCursor.getPosition());
+        } else {
+            index = pool.indexAfter(postId, PostsCursor.NO_POSITION);
+        }
+        List<PostsFeedDto> page = new ArrayList<>();
+        while (page.size() < pageSize && index < pool.size()) {
+            List<Long> candidates = new ArrayList<>();
+            for (int end = Math.min(index + pageSize * 2, pool.size()); index < end; index++) {
+                candidates.add(pool.get(index));
+                positions.put(pool.get(index), index);
+            }
+            Map<Long, PostsFeedDto> found = new HashMap<>();
+            for (PostsFeedDto post : queryRepository.findPublicPostsByIds(candidates, user)) {
+                found.put(post.getPostId(), post);
+            }
+            for (Long candidate : candidates) {
+                PostsFeedDto post = found.get(candidate);
+                if (post != null && page.size() < pageSize) {
+                    page.add(post);
+                }
+            }
+        }
+        return page;
+    }
 
-        Posts posts = requestDto.toPosts(musicRepository.getById(requestDto.getMusicId()), userRepository.getById(requestDto.getUserId()));
+    @Transactional
+    public StateDto save(PostsRequestDto requestDto) {
+        Music music = musicService.saveMusic(requestDto.getMusicId());
+
+        Posts posts = requestDto.toPosts(music, userRepository.getById(requestDto.getUserId()));
         postsRepository.save(posts);
+        if (Boolean.TRUE.equals(posts.getIsPublic())) {
+            myDjTimeline.fanOut(requestDto.getUserId(), posts.getId());
+            recordPublicPost(posts, 1);
+        }
 
         return StateDto.builder().state(true).build();
 
@@ -141,60 +227,56 @@ public class PostsService {
 
 
 
-    static MusicDto getMusicDto(TrackDto trackDto) {
-        return MusicDto.builder()
-                .musicId(trackDto.getMusicId())
-                .musicTitle(trackDto.getMusicTitle())
-                .albumImageUrl(trackDto.getAlbumImageUrl())
-                .artists(trackDto.getArtists())
-                .albumTitle(trackDto.getAlbumTitle())
-                .build();
-    }
-
-    PostsDetailResponseDto getPostsDetailResponseDto(Posts posts, User user, TrackDto trackDto) {
+    PostsDetailResponseDto getPostsDetailResponseDto(PostsFeedDto posts, MusicDto musicDto, PostsStatDto postsStatDto) {
         return PostsDetailResponseDto.builder()
                 .createdDate(posts.getCreatedDate())
                 .recordTitle(posts.getTitle())
                 .recordContents(posts.getContents())
-                .recordId(posts.getId())
+                .recordId(posts.getPostId())
                 .recordImageUrl(posts.getImageUrl())
                 .viewsCnt(posts.getCnt())
-                .userId(posts.getUserId().getId())
-                .nickname(posts.getUserId().getNickname())
-                .isLiked(queryRepository.existsLikeByUserIdPostId(user, posts))
-                .isScraped(queryRepository.existsScarpByUserIdPostId(user, posts))
-                .likeCnt(likeRepository.countByPostId(posts))
-                .scrapCnt(scrapRepository.countByPostId(posts))
-                .music(getMusicDto(trackDto))
+                .userId(posts.getUserId())
+                .nickname(posts.getNickname())
+                .isLiked(postsStatDto.getIsLiked())
+                .isScraped(postsStatDto.getIsScraped())
+                .likeCnt(postsStatDto.getLikeCnt())
+                .scrapCnt(postsStatDto.getScrapCnt())
+                .music(musicDto)
                 .category(posts.getCategory())
                 .build();
     }
 
+    private Map<Long, PostsStatDto> findPostsStats(List<PostsFeedDto> postsList, User user) {
+        List<Long> postIds = new ArrayList<>();
+        for (PostsFeedDto post : postsList) {
+            postIds.add(post.getPostId());
+        }
+        return queryRepository.findPostsStats(postIds, user);
+    }
+
     @Transactional(readOnly = true)
     public List<MyRecordDto> selectMyPosts(Long userId) {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        List<Posts> posts = queryRepository.findPostsByUserId(user);
+        List<PostsFeedDto> posts = queryRepository.findPostsByUserId(user);
 
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(posts);
         List<MyRecordDto> myRecordDtos = new ArrayList<>();
-        for (Posts post : posts) {
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
+        for (PostsFeedDto post : posts) {
             myRecordDtos.add(
-                    postToMyRecordDto(trackDto,post, true)
+                    postToMyRecordDto(musicDtos.get(post.getMusicId()),post, true)
             );
 
         }
         return myRecordDtos;
     }
 
-    private MyRecordDto postToMyRecordDto(TrackDto trackDto,Posts post , Boolean isPublic){ //true면 isPublic 필요한 거고 false면 필요없음
+    private MyRecordDto postToMyRecordDto(MusicDto musicDto,PostsFeedDto post , Boolean isPublic){ //true면 isPublic 필요한 거고 false면 필요없음
 
         MyRecordDto myRecordDto = MyRecordDto.builder()
-                .music(getMusicDto(trackDto))
+                .music(musicDto)
                 .recordTitle(post.getTitle())
                 .recordContents(post.getContents())
-                .recordId(post.getId())
+                .recordId(post.getPostId())
                 .createdDate(post.getCreatedDate())
                 .category(post.getCategory())
                 .isPublic(post.getIsPublic())
@@ -205,39 +287,72 @@ public class PostsService {
         return myRecordDto;
     }
 
+    /**
+     * 내 레코드를 최신순으로 한 페이지씩. size가 없으면 {@link #MY_POST_DEFAULT_SIZE}개, 많아도 {@link #MY_POST_MAX_SIZE}개까지만 준다.
+     * 다음 페이지는 마지막 레코드의 cursor로 요청한다.
+     */
     @Transactional(readOnly = true)
-    public List<PostsDetailResponseDto> selectMyPost(Long userId) {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-
+    public List<PostsDetailResponseDto> selectMyPost(Long userId, String cursor, Integer pageSize) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        List<Long> postsIdList = queryRepository.findPostsIdByUserId(user); //이게 지금은 list를 다 받아와서 하는데 나중엔 하나씩받아와서 받아올때마다 dto만들고 의 반복으로 할 수 있을지 알아보자
-
-        List<PostsDetailResponseDto> postsDetailResponseDtoList = new ArrayList<>();
-        for (Long aLong : postsIdList) {
+        int size = pageSize == null ? MY_POST_DEFAULT_SIZE : Math.max(1, Math.min(pageSize, MY_POST_MAX_SIZE));
 
-            Posts posts = postsRepository.getById(aLong);
+        List<PostsFeedDto> postsList = queryRepository.findPostsByUserId(user, toCursor(SortType.date, null, cursor), size);
 
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), posts.getMusicId().getId());
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(postsList);
+        Map<Long, PostsStatDto> postsStats = findPostsStats(postsList, user);
 
-            PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(posts, user, trackDto);
-            postsDetailResponseDto.setIsPublic(posts.getIsPublic());
+        List<PostsDetailResponseDto> postsDetailResponseDtoList = new ArrayList<>(postsList.size());
+        for (PostsFeedDto post : postsList) {
+            PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(post, musicDtos.get(post.getMusicId()), postsStats.get(post.getPostId()));
+            postsDetailResponseDto.setIsPublic(post.getIsPublic());
+            postsDetailResponseDto.setCursor(nextCursor(SortType.date, post, null, Collections.emptyMap()));
 
             postsDetailResponseDtoList.add(postsDetailResponseDto);
-
-
         }
 
-
         return postsDetailResponseDtoList;
     }
 
+    /**
+     * afterId 다음 레코드부터 size개의 like_count, scrap_count를 실제 좋아요/스크랩 수와 맞춘다.
+     *
+     * @return 마지막으로 확인한 레코드 id, 더 확인할 레코드가 없으면 null
+     */
+    @Transactional
+    public Long reconcileCounts(Long afterId, int size) {
+        List<Tuple> rows = queryRepository.findPostsCounts(afterId, size);
+        for (Tuple row : rows) {
+            int likeCount = row.get(1, Integer.class);
+            int scrapCount = row.get(2, Integer.class);
+            int actualLikeCount = row.get(3, Long.class).intValue();
+            int actualScrapCount = row.get(4, Long.class).intValue();
+            if (likeCount != actualLikeCount || scrapCount != actualScrapCount) {
+                postsRepository.updateCounts(row.get(0, Long.class), likeCount, scrapCount, actualLikeCount, actualScrapCount);
+            }
+        }
+        return rows.size() < size ? null : rows.get(rows.size() - 1).get(0, Long.class);
+    }
+
     @Transactional
     public StateDto setPublic(Long postsId) {
         Posts posts = postsRepository.findById(postsId).orElseThrow(() -> new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다"));
         posts.updatePublic();
+        if (Boolean.TRUE.equals(posts.getIsPublic())) {
+            myDjTimeline.fanOut(posts.getUserId().getId(), posts.getId());
+            recordPublicPost(posts, 1);
+        } else {
+            myDjTimeline.removePostFromFollowers(posts.getUserId().getId(), posts.getId());
+            recordPublicPost(posts, -1);
+        }
         return StateDto.builder().state(true).build();
     }
 
+    //투데이의 노래/DJ 집계는 공개 레코드를 작성 시각 구간에 센다
+    private void recordPublicPost(Posts posts, long delta) {
+        activityCounter.record(ActivityType.MUSIC_POSTS, posts.getMusicId().getId(), posts.getCreatedDate(), delta);
+        activityCounter.record(ActivityType.USER_POSTS, posts.getUserId().getId(), posts.getCreatedDate(), delta);
+    }
+
     @Transactional
     public StateDto update(Long postsId, PostsUpdateDto postsUpdateDto) {
         Posts posts = postsRepository.findById(postsId).orElseThrow(() -> new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다"));
@@ -249,11 +364,11 @@ public class PostsService {
     @Transactional
     public StateDto delete(Long postsId) {
         Posts posts = postsRepository.findById(postsId).orElseThrow(() -> new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다"));
-        if (scrapRepository.existsByPostId(posts)) {
-            scrapRepository.deleteAllByPostId(posts);
-        }
-        if (likeRepository.existsByPostId(posts)) {
-            likeRepository.deleteAllByPostId(posts);
+        scrapRepository.deleteAllByPostId(posts);
+        likeRepository.deleteAllByPostId(posts);
+        if (Boolean.TRUE.equals(posts.getIsPublic())) {
+            myDjTimeline.removePostFromFollowers(posts.getUserId().getId(), posts.getId());
+            recordPublicPost(posts, -1);
         }
 
         postsRepository.delete(posts);
@@ -261,23 +376,25 @@ public class PostsService {
     }
 
     @Transactional(readOnly = true)
-    public List<PostsDetailResponseDto> selectPostsByMusicId(String musicId, SortType sortType, Long postId, int pageSize, Long userId) {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-
+    public List<PostsDetailResponseDto> selectPostsByMusicId(String musicId, SortType sortType, Long postId, String cursor, int pageSize, Long userId) {
+        pageSize = capPageSize(pageSize);
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
 
         List<PostsDetailResponseDto> postsDetailResponseDtoList = new ArrayList<>();
 
-        List<Posts> posts; //이게 지금은 list를 다 받아와서 하는데 나중엔 하나씩받아와서 받아올때마다 dto만들고 의 반복으로 할 수 있을지 알아보자
+        List<PostsFeedDto> posts; //이게 지금은 list를 다 받아와서 하는데 나중엔 하나씩받아와서 받아올때마다 dto만들고 의 반복으로 할 수 있을지 알아보자
+        RandomFeedPool.Pool pool = null;
+        Map<Long, Integer> positions = new HashMap<>();
         switch (sortType) {
             case date:
-                posts = queryRepository.findAllByMusicIdByCreatedDate(postId, musicId, pageSize,user);
+                posts = queryRepository.findAllByMusicIdByCreatedDate(toCursor(sortType, postId, cursor), musicId, pageSize,user);
                 break;
             case like:
-                posts = queryRepository.findAllByMusicIdByLike(postId, musicId, pageSize,user);
+                posts = queryRepository.findAllByMusicIdByLike(toCursor(sortType, postId, cursor), musicId, pageSize,user);
                 break;
             case random:
-                posts = queryRepository.findAllByMusicIdByRandom(postId, musicId, pageSize,user);
+                pool = randomPool("music:" + musicId, cursor, () -> queryRepository.findPublicPostIdsByMusicId(musicId));
+                posts = findRandomPage(pool, postId, cursor, pageSize, user, positions);
                 break;
             default:
                 return postsDetailResponseDtoList;
@@ -288,29 +405,28 @@ public class PostsService {
             return postsDetailResponseDtoList;
         }
 
-        TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), posts.get(0).getMusicId().getId());//어차피 같은 뮤직아이디라서 한번만 조회하고 다 넣어주는게 좋을듯
-        for (Posts post : posts) {
-
-            postsDetailResponseDtoList.add(getPostsDetailResponseDto(post, user, trackDto));
-
+        MusicDto musicDto = musicService.getMusicDtos(posts.subList(0, 1)).get(musicId);//어차피 같은 뮤직아이디라서 한번만 조회하고 다 넣어주는게 좋을듯
+        Map<Long, PostsStatDto> postsStats = findPostsStats(posts, user);
+        for (PostsFeedDto post : posts) {
+            PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(post, musicDto, postsStats.get(post.getPostId()));
+            postsDetailResponseDto.setCursor(nextCursor(sortType, post, pool, positions));
+            postsDetailResponseDtoList.add(postsDetailResponseDto);
         }
         return postsDetailResponseDtoList;
     }
 
     @Transactional(readOnly = true)
     public List<PostsDetailResponseDto> selectPostsByUserId(Long fromUserId, Long toUserId) {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-
         User fromUser = userRepository.findById(fromUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
         User toUser = userRepository.findById(toUserId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
 
         List<PostsDetailResponseDto> postsDetailResponseDtoList = new ArrayList<>();
 
-        List<Posts> postsList = queryRepository.findPublicPostsByUserId(toUser,fromUser);
-        for (Posts post : postsList) {
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
-
-            PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(post, fromUser, trackDto);
+        List<PostsFeedDto> postsList = queryRepository.findPublicPostsByUserId(toUser,fromUser);
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(postsList);
+        Map<Long, PostsStatDto> postsStats = findPostsStats(postsList, fromUser);
+        for (PostsFeedDto post : postsList) {
+            PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(post, musicDtos.get(post.getMusicId()), postsStats.get(post.getPostId()));
 
             postsDetailResponseDtoList.add(postsDetailResponseDto);
 
@@ -321,32 +437,70 @@ public class PostsService {
 
     @Transactional(readOnly = true)
     public List<PostsDetailResponseDto> selectMyDjPosts(Long userId, Long postId, int pageSize) {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-
+        pageSize = capPageSize(pageSize);
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
 
         List<PostsDetailResponseDto> postsDetailResponseDtoList = new ArrayList<>();
-        List<Posts> postsList = queryRepository.findAllMyDj(user, postId, pageSize);
+        List<PostsFeedDto> postsList = findMyDjPage(user, postId, pageSize);
 
-        for (Posts post : postsList) {
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
-            PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(post, user, trackDto);
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(postsList);
+        Map<Long, PostsStatDto> postsStats = findPostsStats(postsList, user);
+        for (PostsFeedDto post : postsList) {
+            PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(post, musicDtos.get(post.getMusicId()), postsStats.get(post.getPostId()));
 
             postsDetailResponseDtoList.add(postsDetailResponseDto);
         }
         return postsDetailResponseDtoList;
     }
 
+    /**
+     * 타임라인에서 id를 받아 레코드를 읽는다. 비공개로 바뀌었거나 지워진 레코드, 차단한 레코드는 빠지므로 pageSize가 찰 때까지 다음 id를 더 받는다.
+     * 타임라인에 없는 오래된 부분은 팔로우와 join 해서 읽는다.
+     */
+    private List<PostsFeedDto> findMyDjPage(User user, Long postId, int pageSize) {
+        if (!myDjTimeline.isAvailable()) {
+            return queryRepository.findAllMyDj(user, postId, pageSize);
+        }
+        List<PostsFeedDto> page = new ArrayList<>();
+        Long beforePostId = postId;
+        while (page.size() < pageSize) {
+            List<Long> postIds = myDjTimeline.page(user.getId(), beforePostId, pageSize);
+            if (postIds == null) {
+                page.addAll(queryRepository.findAllMyDj(user, beforePostId, pageSize - page.size()));
+                break;
+            }
+            if (postIds.isEmpty()) {
+                break;
+            }
+            Map<Long, PostsFeedDto> found = new HashMap<>();
+            for (PostsFeedDto post : queryRepository.findPublicPostsByIds(postIds, user)) {
+                found.put(post.getPostId(), post);
+            }
+            for (Long candidate : postIds) {//최신순
+                PostsFeedDto post = found.get(candidate);
+                if (post != null && page.size() < pageSize) {
+                    page.add(post);
+                }
+            }
+            if (postIds.size() < pageSize) {
+                break;//타임라인 끝
+            }
+            beforePostId = postIds.get(postIds.size() - 1);
+        }
+        return page;
+    }
+
     @Transactional(readOnly = true)
     public PostsDetailResponseDto selectPostById(Long postId, Long userId) {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        Posts post = postsRepository.findById(postId).orElseThrow(() -> new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다"));
+        PostsFeedDto post = queryRepository.findPostsFeedById(postId);
+        if (post == null) {
+            throw new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다");
+        }
 
-        TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
-        PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(post, user, trackDto);
-        if (user.getId().equals(post.getUserId().getId())) {
+        PostsStatDto postsStatDto = queryRepository.findPostsStats(List.of(post.getPostId()), user).get(post.getPostId());
+        PostsDetailResponseDto postsDetailResponseDto = getPostsDetailResponseDto(post, musicService.getMusicDtos(List.of(post)).get(post.getMusicId()), postsStatDto);
+        if (user.getId().equals(post.getUserId())) {
             postsDetailResponseDto.setIsPublic(post.getIsPublic());
         }
 
@@ -355,31 +509,27 @@ public class PostsService {
 
     @Transactional
     public Object selectPostsByUserIdOnMyPage(Long userId){
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
 
         HashMap<String ,Object> records = new HashMap<>();
-        records.put("scrappedRecords",postToRecordList(queryRepository.findScrapedPostsByUserId(user,2),spotifyApi));
-        records.put("likedRecords",postToRecordList(queryRepository.findLikedPostsByUserId(user,2),spotifyApi));
+        records.put("scrappedRecords",postToRecordList(queryRepository.findScrapedPostsByUserId(user,2)));
+        records.put("likedRecords",postToRecordList(queryRepository.findLikedPostsByUserId(user,2)));
 
         return records;
 
     }
 
-    private Object postToRecordList(List<Posts>postsList, SpotifyApi spotifyApi){
+    private Object postToRecordList(List<PostsFeedDto>postsList){
         List<Object> objects = new ArrayList<>();
 
-        for(Posts post : postsList){
-
-
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
-            MusicDto musicDto = getMusicDto(trackDto);
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(postsList);
+        for(PostsFeedDto post : postsList){
+            MusicDto musicDto = musicDtos.get(post.getMusicId());
 
             HashMap<String ,Object> record = new HashMap<>();
             record.put("recordTitle",post.getTitle());
             record.put("recordImageUrl",post.getImageUrl());
-            record.put("recordId",post.getId());
+            record.put("recordId",post.getPostId());
             record.put("music",musicDto);
 
 
@@ -391,16 +541,14 @@ public class PostsService {
 
     @Transactional(readOnly = true)
     public List<MyRecordDto> selectScrappedPosts(Long userId){  //나중에 아래 겹친 부분 따로 모아야 하나 생각중...
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        List<Posts> posts = queryRepository.findScrapedPostsByUserId(user,null);
+        List<PostsFeedDto> posts = queryRepository.findScrapedPostsByUserId(user,null);
 
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(posts);
         List<MyRecordDto> myRecordDtos = new ArrayList<>();
-        for (Posts post : posts) {
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
+        for (PostsFeedDto post : posts) {
             myRecordDtos.add(
-                    postToMyRecordDto(trackDto,post,false)
+                    postToMyRecordDto(musicDtos.get(post.getMusicId()),post,false)
             );
 
         }
@@ -409,21 +557,23 @@ public class PostsService {
 
     @Transactional(readOnly = true)
     public List<MyRecordDto> selectLikedPosts(Long userId){
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        List<Posts> posts = queryRepository.findLikedPostsByUserId(user,null);
+        List<PostsFeedDto> posts = queryRepository.findLikedPostsByUserId(user,null);
 
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(posts);
         List<MyRecordDto> myRecordDtos = new ArrayList<>();
-        for (Posts post : posts) {
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
+        for (PostsFeedDto post : posts) {
             myRecordDtos.add(
-                    postToMyRecordDto(trackDto,post,false)
+                    postToMyRecordDto(musicDtos.get(post.getMusicId()),post,false)
             );
         }
         return myRecordDtos;
     }
 
+    private static int capPageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+
 
 
 
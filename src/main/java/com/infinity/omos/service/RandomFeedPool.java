@@ -0,0 +1,178 @@
+package com.infinity.omos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 랜덤순 레코드 목록용으로 카테고리별, 노래별 공개 레코드 id를 미리 섞어둔 pool.
+ * pool은 (목록, seed)마다 따로 만들어지고 같은 seed면 순서가 항상 같으므로, 클라이언트는 cursor에 seed와 pool 안의 위치를 담아
+ * 페이지를 넘기는 동안 중복 없이 같은 순서를 보고, 서버는 pool을 뒤지지 않고 그 위치부터 읽는다. 새로 첫 페이지를 요청하면 지금 seed의 pool을 받고,
+ * seed는 {@link #reshuffle}에서 주기적으로 바뀐다. cursor의 seed는 지금 seed와 바로 전 seed만 받고, 그 밖의 seed(조작했거나 아주 오래된 cursor)는 지금 pool로 대신한다. 메트릭은 "random.pool" 캐시로 노출된다.
+ */
+@Component
+public class RandomFeedPool {
+
+    private static final long MAXIMUM_POST_IDS = 2_000_000;
+    private static final Duration EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
+    //목록별 지금 seed와 바로 전 seed. 지금 seed가 없으면 처음 요청할 때 새로 만든다
+    private final Map<String, Seeds> seeds = new ConcurrentHashMap<>();
+
+    private Cache<Key, Pool> pools;
+
+    @PostConstruct
+    public void init() {
+        pools = Caffeine.newBuilder()
+                .maximumWeight(MAXIMUM_POST_IDS)
+                .weigher((Key key, Pool pool) -> pool.size() + 1)
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, pools, "random.pool");
+    }
+
+    /**
+     * @param feed          "category:A_LINE", "music:{musicId}" 처럼 목록을 구분하는 key
+     * @param seed          cursor에 있던 seed. 첫 페이지면 null. 지금 seed나 바로 전 seed가 아니면 지금 pool을 준다
+     * @param postIdsLoader 목록의 공개 레코드 id. pool이 없을 때만 호출된다
+     */
+    public Pool get(String feed, Long seed, Supplier<List<Long>> postIdsLoader) {
+        Seeds feedSeeds = seeds.compute(feed, (key, current) -> current == null ? Seeds.first() : current.withCurrent());
+        long poolSeed = seed != null && feedSeeds.accepts(seed) ? seed : feedSeeds.current;
+        return pools.get(new Key(feed, poolSeed), key -> Pool.shuffle(key.seed, postIdsLoader.get()));
+    }
+
+    /**
+     * 다음 첫 페이지부터는 새로 섞인 pool을 받는다. 이미 페이지를 넘기고 있는 클라이언트는 예전 pool을 계속 쓴다.
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000)
+    public void reshuffle() {
+        //지난 주기에 아무도 새로 받지 않은 목록은 지금 seed가 없으므로 바로 전 seed까지 지운다
+        for (String feed : seeds.keySet()) {
+            seeds.computeIfPresent(feed, (key, feedSeeds) -> feedSeeds.current == null ? null : feedSeeds.next());
+        }
+    }
+
+    private static final class Seeds {
+        private final Long current;
+        private final Long previous;
+
+        private Seeds(Long current, Long previous) {
+            this.current = current;
+            this.previous = previous;
+        }
+
+        private static Seeds first() {
+            return new Seeds(ThreadLocalRandom.current().nextLong(), null);
+        }
+
+        //reshuffle 이후 처음 요청이면 지금 seed를 새로 만들고, 바로 전 seed는 그대로 둔다
+        private Seeds withCurrent() {
+            return current != null ? this : new Seeds(ThreadLocalRandom.current().nextLong(), previous);
+        }
+
+        private Seeds next() {
+            return new Seeds(null, current);
+        }
+
+        private boolean accepts(long seed) {
+            return (current != null && current == seed) || (previous != null && previous == seed);
+        }
+    }
+
+    public static class Pool {
+        @Getter
+        private final long seed;
+        private final long[] postIds;
+
+        private Pool(long seed, long[] postIds) {
+            this.seed = seed;
+            this.postIds = postIds;
+        }
+
+        //id 순서로 정렬된 목록을 seed로 섞는다 (Fisher-Yates)
+        private static Pool shuffle(long seed, List<Long> sortedPostIds) {
+            long[] postIds = new long[sortedPostIds.size()];
+            for (int i = 0; i < postIds.length; i++) {
+                postIds[i] = sortedPostIds.get(i);
+            }
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int i = postIds.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                long tmp = postIds[i];
+                postIds[i] = postIds[j];
+                postIds[j] = tmp;
+            }
+            return new Pool(seed, postIds);
+        }
+
+        public int size() {
+            return postIds.length;
+        }
+
+        public long get(int index) {
+            return postIds[index];
+        }
+
+        /**
+         * cursor 다음 위치. cursor가 가리키는 position에 postId가 그대로 있으면 바로 다음 위치이다.
+         * position이 없는 예전 cursor이거나 pool이 만료되어 다시 만들어져 자리가 바뀐 경우에만 postId를 찾고, 없으면 처음부터
+         */
+        public int indexAfter(Long postId, int position) {
+            if (postId == null) {
+                return 0;
+            }
+            if (position >= 0 && position < postIds.length && postIds[position] == postId) {
+                return position + 1;
+            }
+            for (int i = 0; i < postIds.length; i++) {
+                if (postIds[i] == postId) {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static final class Key {
+        private final String feed;
+        private final long seed;
+
+        private Key(String feed, long seed) {
+            this.feed = feed;
+            this.seed = seed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return seed == key.seed && feed.equals(key.feed);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(feed, seed);
+        }
+    }
+}
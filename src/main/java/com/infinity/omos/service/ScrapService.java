@@ -1,14 +1,12 @@
 package com.infinity.omos.service;
 
-import com.infinity.omos.domain.*;
-import com.infinity.omos.domain.Posts.Posts;
 import com.infinity.omos.domain.Posts.PostsRepository;
 import com.infinity.omos.domain.Scrap.Scrap;
 import com.infinity.omos.domain.Scrap.ScrapRepository;
-import com.infinity.omos.domain.User.User;
 import com.infinity.omos.domain.User.UserRepository;
 import com.infinity.omos.dto.StateDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,26 +17,33 @@ public class ScrapService {
     private final ScrapRepository scrapRepository;
     private final PostsRepository postsRepository;
     private final UserRepository userRepository;
-    private final QueryRepository queryRepository;
 
+    //레코드와 유저를 미리 읽지 않는다. 스크랩 수 update가 레코드 존재 확인을 겸하고, 중복은 기본키로 막는다
     @Transactional
     public StateDto save(Long postsId, Long userId){
-        Posts posts = postsRepository.findById(postsId).orElseThrow(() -> new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다"));
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-        if(queryRepository.existsScarpByUserIdPostId(user,posts)){
-            throw new RuntimeException("이미 스크랩 되어있습니다");
+        if (postsRepository.increaseScrapCount(postsId) == 0) {
+            throw new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다");
+        }
+        try {
+            scrapRepository.saveAndFlush(Scrap.builder()
+                    .postId(postsRepository.getById(postsId))
+                    .userId(userRepository.getById(userId))
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            if (DuplicateKeys.isDuplicate(e)) {
+                throw new RuntimeException("이미 스크랩 되어있습니다");
+            }
+            throw new RuntimeException("해당 유저는 존재하지 않는 유저입니다");
         }
-
-        scrapRepository.save(Scrap.builder().postId(posts).userId(user).build());
         return StateDto.builder().state(true).build();
     }
 
     @Transactional
     public StateDto delete(Long postsId, Long userId){
-        Posts posts = postsRepository.findById(postsId).orElseThrow(() -> new RuntimeException("해당 레코드는 존재하지 않는 레코드입니다"));
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("해당 유저는 존재하지 않는 유저입니다"));
-
-        scrapRepository.delete(queryRepository.findScrapByUserIdPostId(user,posts));
+        if (scrapRepository.deleteByUserIdAndPostId(userId, postsId) == 0) {
+            throw new RuntimeException("해당 레코드는 스크랩 되어있지 않습니다");
+        }
+        postsRepository.decreaseScrapCount(postsId);
         return StateDto.builder().state(true).build();
     }
 
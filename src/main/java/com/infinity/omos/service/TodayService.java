@@ -1,66 +1,123 @@
 package com.infinity.omos.service;
 
-import com.infinity.omos.api.SpotifyAllSearchApi;
-import com.infinity.omos.api.SpotifyApiAuthorization;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.infinity.omos.domain.Activity.ActivityType;
 import com.infinity.omos.domain.Posts.Posts;
 import com.infinity.omos.domain.QueryRepository;
 import com.infinity.omos.domain.User.User;
 import com.infinity.omos.domain.User.UserRepository;
 import com.infinity.omos.dto.DjDto;
 import com.infinity.omos.dto.MusicDto;
+import com.infinity.omos.dto.PostsFeedDto;
 import com.infinity.omos.dto.PostsResponseDto;
-import com.infinity.omos.dto.TrackDto;
+import com.infinity.omos.dto.TodaySnapshot;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import se.michaelthelin.spotify.SpotifyApi;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-
-import static com.infinity.omos.service.PostsService.getMusicDto;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class TodayService {
-    private final SpotifyApiAuthorization spotifyApiAuthorization;
+    private static final int FALLBACK_WINDOW_DAYS = 7;
+    private static final int FAMOUS_RECORDS_SIZE = 5;
+    private static final int FAMOUS_RECORDS_CANDIDATES = 20;
+    private static final int RECOMMENDED_DJ_SIZE = 5;
+
+    private final MusicService musicService;
     private final QueryRepository queryRepository;
     private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final ActivityRollupService activityRollupService;
 
+    /**
+     * today 전날 하루 [00:00, 다음날 00:00) 동안의 활동 집계로 투데이 스냅샷을 만든다. 전날 레코드가 하나도 없으면 최근 {@link #FALLBACK_WINDOW_DAYS}일로 넓힌다.
+     * 집계가 아직 비어 있으면(activity_rollup을 채우기 전) 예전처럼 레코드를 직접 센다.
+     * 노래정보는 여기서 한번만 가져오고, 결과는 JSON으로 직렬화해 둔다.
+     */
     @Transactional(readOnly = true)
-    public MusicDto musicOfToday() {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-        String musicId = queryRepository.findMusicIdOnToday();
+    public TodaySnapshot buildSnapshot(LocalDate today) {
+        LocalDateTime end = today.atStartOfDay();
+        LocalDateTime start = end.minusDays(1);
+        List<String> musicIds = activityRollupService.top(ActivityType.MUSIC_POSTS, start, end, 1);
+        if (musicIds.isEmpty()) {
+            start = end.minusDays(FALLBACK_WINDOW_DAYS);
+            musicIds = activityRollupService.top(ActivityType.MUSIC_POSTS, start, end, 1);
+        }
+        if (musicIds.isEmpty()) {
+            return buildSnapshotFromPosts(end.minusDays(1), end);
+        }
+
+        List<Long> djIds = new ArrayList<>();
+        for (String userId : activityRollupService.top(ActivityType.USER_POSTS, start, end, RECOMMENDED_DJ_SIZE)) {
+            djIds.add(Long.valueOf(userId));
+        }
+        return new TodaySnapshot(
+                toJson(musicService.getMusicDto(musicIds.get(0))),
+                toJson(famousRecords(famousPosts(start, end))),
+                toJson(recommendedDj(djIds)),
+                start, end, LocalDateTime.now());
+    }
+
+    private TodaySnapshot buildSnapshotFromPosts(LocalDateTime start, LocalDateTime end) {
+        String musicId = queryRepository.findMusicIdOnToday(start, end);
         if (musicId == null) {
-            return null;
+            start = end.minusDays(FALLBACK_WINDOW_DAYS);
+            musicId = queryRepository.findMusicIdOnToday(start, end);
         }
-        return getMusicDto(SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), musicId));
+
+        MusicDto musicOfToday = musicId == null ? null : musicService.getMusicDto(musicId);
+        return new TodaySnapshot(
+                toJson(musicOfToday),
+                toJson(famousRecords(queryRepository.findPostsOnToday(start, end))),
+                toJson(recommendedDj(queryRepository.findDjOnToday(start, end))),
+                start, end, LocalDateTime.now());
     }
 
-    @Transactional(readOnly = true)
-    public List<PostsResponseDto> famousRecordsOfToday() {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-        List<Posts> postsList = queryRepository.findPostsOnToday();
-        List<PostsResponseDto> postsResponseDtos = new ArrayList<>(); //이부분 지금postservice에 한 부분이랑 겹침 그래서 나중에 고도화때 따로빼서 사용하던가 암튼 그러는게 좋을것같음 뭔가 따로 이렇게 dto에 정보 조합하는 클래스를 따로 만들어도 될것같음~
-        for (Posts post : postsList) {
-            TrackDto trackDto = SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId());
+    /**
+     * 기간 동안 좋아요를 많이 받은 공개 레코드 순으로 {@link #FAMOUS_RECORDS_SIZE}개. 비공개로 바뀌었거나 지워진 레코드가 빠질 것을 생각해 넉넉히 읽는다.
+     */
+    private List<PostsFeedDto> famousPosts(LocalDateTime start, LocalDateTime end) {
+        List<Long> postIds = new ArrayList<>();
+        for (String postId : activityRollupService.top(ActivityType.POST_LIKES, start, end, FAMOUS_RECORDS_CANDIDATES)) {
+            postIds.add(Long.valueOf(postId));
+        }
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, PostsFeedDto> found = new HashMap<>();
+        for (PostsFeedDto post : queryRepository.findPublicPostsByIds(postIds, null)) {
+            found.put(post.getPostId(), post);
+        }
+        List<PostsFeedDto> postsList = new ArrayList<>();
+        for (Long postId : postIds) {
+            PostsFeedDto post = found.get(postId);
+            if (post != null && postsList.size() < FAMOUS_RECORDS_SIZE) {
+                postsList.add(post);
+            }
+        }
+        return postsList;
+    }
 
+    private List<PostsResponseDto> famousRecords(List<PostsFeedDto> postsList) {
+        Map<String, MusicDto> musicDtos = musicService.getMusicDtos(postsList);
+        List<PostsResponseDto> postsResponseDtos = new ArrayList<>();
+        for (PostsFeedDto post : postsList) {
             postsResponseDtos.add(
                     PostsResponseDto.builder()
-                            .music(MusicDto.builder()
-                                    .musicId(trackDto.getMusicId())
-                                    .musicTitle(trackDto.getMusicTitle())
-                                    .albumImageUrl(trackDto.getAlbumImageUrl())
-                                    .artists(trackDto.getArtists())
-                                    .albumTitle(trackDto.getAlbumTitle())
-                                    .build()
-                            )
-                            .recordId(post.getId())
+                            .music(musicDtos.get(post.getMusicId()))
+                            .recordId(post.getPostId())
                             .recordTitle(post.getTitle())
                             .recordImageUrl(post.getImageUrl())
-                            .nickname(post.getUserId().getNickname())
-                            .userId(post.getUserId().getId())
+                            .nickname(post.getNickname())
+                            .userId(post.getUserId())
                             .build()
             );
 
@@ -68,22 +125,30 @@ public class TodayService {
         return postsResponseDtos;
     }
 
-    @Transactional(readOnly = true)
-    public List<DjDto> recommendedDjOnToday() {
+    //레코드를 많이 쓴 순서 그대로
+    private List<DjDto> recommendedDj(List<Long> userIds) {
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            users.put(user.getId(), user);
+        }
         List<DjDto> djDtoList = new ArrayList<>();
-        for (Long userId : queryRepository.findDjOnToday()) { //이부분 null나오면 for문안돌고 넘어갈지 모르겟네
-            User user = userRepository.getById(userId);
-            djDtoList.add(
-                    DjDto.builder()
-                            .userId(userId)
-                            .nickname(user.getNickname())
-                            .profileUrl(user.getProfileUrl())
-                            .build()
-            );
+        for (Long userId : userIds) {
+            User user = users.get(userId);
+            if (user != null) {
+                djDtoList.add(user.toMyDjDto());
+            }
         }
         return djDtoList;
     }
 
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("투데이 스냅샷을 만들 수 없습니다", e);
+        }
+    }
+
     @Transactional(readOnly = true)
     public Object randomPostOnToday(Long userId) {
         Posts post = queryRepository.findPostByRandom(userId);
@@ -91,8 +156,7 @@ public class TodayService {
             throw new RuntimeException("해당 레코드가 없습니다");
         }
 
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-        MusicDto musicDto = getMusicDto(SpotifyAllSearchApi.getTrackApi(spotifyApi.getAccessToken(), post.getMusicId().getId()));
+        MusicDto musicDto = musicService.getMusicDto(post.getMusicId());
 
         HashMap<String, Object> record = new HashMap<>();
         record.put("recordImageUrl", post.getImageUrl());
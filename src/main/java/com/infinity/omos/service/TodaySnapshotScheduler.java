@@ -0,0 +1,62 @@
+package com.infinity.omos.service;
+
+import com.infinity.omos.dto.TodaySnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 투데이 스냅샷을 앱이 뜰 때와 매일 자정 직후에 다시 만들고, 다 만들어지면 한번에 바꿔 끼운다.
+ * 만드는 동안에도 요청은 이전 스냅샷으로 답한다. 운영자는 {@link #rebuild}를 API로 직접 부를 수 있다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TodaySnapshotScheduler {
+
+    private final TodayService todayService;
+
+    private final AtomicReference<TodaySnapshot> snapshot = new AtomicReference<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildQuietly();
+    }
+
+    @Scheduled(cron = "0 1 0 * * *")
+    public void rebuildDaily() {
+        rebuildQuietly();
+    }
+
+    public TodaySnapshot get() {
+        TodaySnapshot current = snapshot.get();
+        return current != null ? current : buildIfAbsent();
+    }
+
+    //아직 스냅샷이 없을 때 동시에 들어온 요청들이 각자 만들지 않도록, lock을 잡은 뒤 먼저 만든 것이 있으면 그것을 쓴다
+    private synchronized TodaySnapshot buildIfAbsent() {
+        TodaySnapshot current = snapshot.get();
+        return current != null ? current : rebuild();
+    }
+
+    public synchronized TodaySnapshot rebuild() {
+        TodaySnapshot built = todayService.buildSnapshot(LocalDate.now());
+        snapshot.set(built);
+        log.info("투데이 스냅샷 생성: {} ~ {}", built.getStart(), built.getEnd());
+        return built;
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("투데이 스냅샷 생성 실패, 이전 스냅샷을 유지합니다: {}", e.getMessage());
+        }
+    }
+}
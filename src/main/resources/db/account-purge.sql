@@ -0,0 +1,4 @@
+-- 탈퇴 처리 중인 유저를 표시하는 user.purge_requested_date 를 추가한다. (MySQL)
+-- 값이 있는 유저는 로그인할 수 없고, AccountPurger가 앱이 뜰 때 남은 기록을 이어서 지운다.
+
+ALTER TABLE `user` ADD COLUMN purge_requested_date DATETIME(6) NULL;
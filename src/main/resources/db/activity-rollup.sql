@@ -0,0 +1,45 @@
+-- 활동 집계 테이블 activity_rollup 을 만들고 최근 14일치를 posts, like_num 에서 채운다. (MySQL)
+-- 애플리케이션을 내린 상태에서 한번 실행한다. 그 뒤로는 ActivityRollupScheduler가 시간 단위로 더하고 매일 일 단위로 합친다.
+-- 좋아요는 지금 남아 있는 것만 누른 시각으로 센다. (이미 취소된 좋아요는 알 수 없다)
+
+CREATE TABLE IF NOT EXISTS activity_rollup (
+    type        VARCHAR(20)  NOT NULL,
+    granularity VARCHAR(10)  NOT NULL,
+    bucket      DATETIME(6)  NOT NULL,
+    target_id   VARCHAR(255) NOT NULL,
+    total       BIGINT       NOT NULL,
+    PRIMARY KEY (type, granularity, bucket, target_id),
+    INDEX idx_activity_rollup_window (type, granularity, bucket, target_id, total)
+);
+
+SET @since = DATE_SUB(CURDATE(), INTERVAL 14 DAY);
+
+-- 시간 단위: 노래별/유저별 공개 레코드 수, 레코드별 좋아요 수
+INSERT INTO activity_rollup (type, granularity, bucket, target_id, total)
+SELECT 'MUSIC_POSTS', 'HOUR', DATE_FORMAT(created_date, '%Y-%m-%d %H:00:00'), music_id, COUNT(*)
+FROM posts
+WHERE created_date >= @since AND is_public = TRUE
+GROUP BY DATE_FORMAT(created_date, '%Y-%m-%d %H:00:00'), music_id
+ON DUPLICATE KEY UPDATE total = VALUES(total);
+
+INSERT INTO activity_rollup (type, granularity, bucket, target_id, total)
+SELECT 'USER_POSTS', 'HOUR', DATE_FORMAT(created_date, '%Y-%m-%d %H:00:00'), user_id, COUNT(*)
+FROM posts
+WHERE created_date >= @since AND is_public = TRUE
+GROUP BY DATE_FORMAT(created_date, '%Y-%m-%d %H:00:00'), user_id
+ON DUPLICATE KEY UPDATE total = VALUES(total);
+
+INSERT INTO activity_rollup (type, granularity, bucket, target_id, total)
+SELECT 'POST_LIKES', 'HOUR', DATE_FORMAT(created_date, '%Y-%m-%d %H:00:00'), post_id, COUNT(*)
+FROM like_num
+WHERE created_date >= @since
+GROUP BY DATE_FORMAT(created_date, '%Y-%m-%d %H:00:00'), post_id
+ON DUPLICATE KEY UPDATE total = VALUES(total);
+
+-- 일 단위: 오늘을 뺀 날들의 시간 단위 행을 합친다
+INSERT INTO activity_rollup (type, granularity, bucket, target_id, total)
+SELECT type, 'DAY', DATE(bucket), target_id, SUM(total)
+FROM activity_rollup
+WHERE granularity = 'HOUR' AND bucket < CURDATE()
+GROUP BY type, DATE(bucket), target_id
+ON DUPLICATE KEY UPDATE total = VALUES(total);
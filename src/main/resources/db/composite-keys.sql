@@ -0,0 +1,36 @@
+-- like_num, scrap, follow 의 대리키(id)를 없애고 복합 기본키로 바꾼다. (MySQL)
+-- 애플리케이션을 내린 상태에서 한번 실행한다. 테이블마다 중복 행을 먼저 지우고, 레코드의 좋아요/스크랩 수를 다시 맞춘다.
+-- 예전 배포에서 ddl-auto로 uk_like_user_post, uk_scrap_user_post, uk_follow_from_to 유니크 키가 만들어졌다면
+-- 기본키와 겹치므로 각 ALTER TABLE에 DROP INDEX uk_... 를 같이 넣는다.
+
+-- 좋아요: 기본키 (user_id, post_id), 레코드별 조회는 (post_id, user_id)
+DELETE l1 FROM like_num l1
+    JOIN like_num l2 ON l1.user_id = l2.user_id AND l1.post_id = l2.post_id AND l1.id > l2.id;
+
+ALTER TABLE like_num
+    DROP COLUMN id,
+    ADD PRIMARY KEY (user_id, post_id),
+    ADD INDEX idx_like_post_user (post_id, user_id);
+
+-- 스크랩: 기본키 (user_id, post_id), 레코드별 조회는 (post_id, user_id)
+DELETE s1 FROM scrap s1
+    JOIN scrap s2 ON s1.user_id = s2.user_id AND s1.post_id = s2.post_id AND s1.id > s2.id;
+
+ALTER TABLE scrap
+    DROP COLUMN id,
+    ADD PRIMARY KEY (user_id, post_id),
+    ADD INDEX idx_scrap_post_user (post_id, user_id);
+
+-- 팔로우: 기본키 (from_user_id, to_user_id), 팔로워 조회는 (to_user_id, from_user_id)
+DELETE f1 FROM follow f1
+    JOIN follow f2 ON f1.from_user_id = f2.from_user_id AND f1.to_user_id = f2.to_user_id AND f1.id > f2.id;
+
+ALTER TABLE follow
+    DROP COLUMN id,
+    ADD PRIMARY KEY (from_user_id, to_user_id),
+    ADD INDEX idx_follow_to_from (to_user_id, from_user_id);
+
+-- 중복 행 때문에 더해졌던 수를 되돌린다
+UPDATE posts p
+SET p.like_count  = (SELECT COUNT(*) FROM like_num l WHERE l.post_id = p.id),
+    p.scrap_count = (SELECT COUNT(*) FROM scrap s WHERE s.post_id = p.id);
@@ -11,7 +11,6 @@ import com.infinity.omos.service.AuthService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import se.michaelthelin.spotify.SpotifyApi;
 
 import java.io.IOException;
 import java.util.List;
@@ -43,8 +42,8 @@ public class GeniusRequestApiTests {
 
     @Test
     public void ApiTests() {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-        List<AlbumTrackDto> albumTrackDtos = SpotifyAllSearchApi.getAlbumTrackApi(spotifyApi.getAccessToken(),"01dPJcwyht77brL4JQiR8R");
+        String accessToken = spotifyApiAuthorization.currentToken();
+        List<AlbumTrackDto> albumTrackDtos = SpotifyAllSearchApi.getAlbumTrackApi(accessToken,"01dPJcwyht77brL4JQiR8R");
         System.out.println(albumTrackDtos.get(1).getMusicTitle());
         //System.out.println(trackDto.getArtists());
 
@@ -52,8 +51,8 @@ public class GeniusRequestApiTests {
 
     @Test
     public void test() {
-        SpotifyApi spotifyApi = spotifyApiAuthorization.clientCredentials_Sync();
-        List<HotTrackDto> trackDtos = SpotifyAllSearchApi.getHotTracksApi(spotifyApi.getAccessToken(),"3HqSLMAZ3g3d5poNaI7GOU");
+        String accessToken = spotifyApiAuthorization.currentToken();
+        List<HotTrackDto> trackDtos = SpotifyAllSearchApi.getHotTracksApi(accessToken,"3HqSLMAZ3g3d5poNaI7GOU");
         for(HotTrackDto trackDto : trackDtos){
             System.out.println(trackDto.getMusicTitle());
         }